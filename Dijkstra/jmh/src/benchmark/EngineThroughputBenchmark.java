@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import pathfinder.QueryEngine;
+import pathfinder.ShortestPath;
+import utility.GraphInput;
+
+/**
+ * EngineThroughputBenchmark.java
+ * Queries per second of one QueryEngine shared by every benchmark thread,
+ * each asking for random point-to-point paths.  It runs on all processors
+ * by default; run it again with -t 1, -t 2 and so on to see how throughput
+ * grows with the number of query threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class EngineThroughputBenchmark {
+
+    /**
+     * The engine all threads query.
+     */
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({ "grid-90000", "road-90000" })
+        public String shape;
+
+        QueryEngine engine;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            // the loader reports progress on System.out
+            PrintStream console = GraphFiles.mute();
+            try {
+                engine = new QueryEngine(GraphInput.LoadCSRGraph(GraphFiles.file(shape)));
+            } finally {
+                System.setOut(console);
+            }
+        }
+    }
+
+    /**
+     * The random query stream of one thread, seeded by the thread index.
+     */
+    @State(Scope.Thread)
+    public static class Queries {
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams thread) {
+            random = new Random(thread.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public ShortestPath shortestPath(Engine state, Queries queries) {
+        int n = state.engine.getGraph().numVertices();
+        return state.engine.shortestPath(queries.random.nextInt(n), queries.random.nextInt(n));
+    }
+}
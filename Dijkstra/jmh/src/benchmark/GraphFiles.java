@@ -0,0 +1,119 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import utility.GraphGenerator;
+import utility.GraphInput;
+import utility.GraphSnapshot;
+
+/**
+ * GraphFiles.java
+ * The inputs the benchmarks share: graph files made by GraphGenerator with a
+ * fixed seed, named by shape and vertex count, e.g. "grid-10000" for a 100 by
+ * 100 grid, "road-10000", "random-10000" or "rmat-16384", and a fixed
+ * sequence of query pairs.  Files are written to the temporary directory once
+ * per JVM and deleted on exit.
+ */
+final class GraphFiles {
+
+    /** queries per latency benchmark, cycled through */
+    static final int QUERIES = 1000;
+
+    private static final Map<String, String> FILES = new HashMap<>();
+
+    private GraphFiles() {
+    }
+
+    /**
+     * Gets the file of a graph shape, writing it on first use.
+     * @param shape a shape name such as "grid-10000"
+     * @return the path of the file in the GraphInput format
+     * @throws IOException if the file cannot be written
+     */
+    static synchronized String file(String shape) throws IOException {
+        String path = FILES.get(shape);
+        if (path == null) {
+            File file = File.createTempFile(shape + "-", ".txt");
+            file.deleteOnExit();
+            generator(shape).write(file.getPath());
+            path = file.getPath();
+            FILES.put(shape, path);
+        }
+        return path;
+    }
+
+    /**
+     * Gets the snapshot of a graph file, writing it next to the file on first use.
+     * @param path  a graph file
+     * @return the path of its snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    static synchronized String snapshot(String path) throws IOException {
+        File file = new File(path + ".snapshot");
+        if (!file.exists()) {
+            file.deleteOnExit();
+            GraphSnapshot.write(GraphInput.LoadCSRGraph(path), file.getPath());
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Gets a fixed sequence of origin and destination indices, QUERIES pairs
+     * in a row, the same for every benchmark on a graph of n vertices.
+     * @param n the vertex count
+     * @return origin and destination of each query, one after the other
+     */
+    static int[] pairs(int n) {
+        Random random = new Random(7);
+        int[] pairs = new int[2 * QUERIES];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(n);
+        }
+        return pairs;
+    }
+
+    /**
+     * Replaces System.out with a stream that drops everything, since the
+     * loaders and the legacy search print as they go.
+     * @return the stream to put back afterwards
+     */
+    static PrintStream mute() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            public void write(int b) {
+            }
+
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        return console;
+    }
+
+    private static GraphGenerator generator(String shape) {
+        int dash = shape.lastIndexOf('-');
+        if (dash < 0) {
+            throw new IllegalArgumentException("no vertex count in shape " + shape);
+        }
+        String kind = shape.substring(0, dash);
+        int n = Integer.parseInt(shape.substring(dash + 1));
+        int side = (int) Math.round(Math.sqrt(n));
+        if (kind.equals("grid")) {
+            return GraphGenerator.grid(side, side, 42);
+        } else if (kind.equals("road")) {
+            return GraphGenerator.roadLike(side, side, 42);
+        } else if (kind.equals("random")) {
+            // one component, so every query has a path
+            return GraphGenerator.components(1, n, 3L * n, 42);
+        } else if (kind.equals("rmat")) {
+            int scale = Integer.numberOfTrailingZeros(n);
+            return GraphGenerator.rmat(scale, 8L << scale, 42);
+        }
+        throw new IllegalArgumentException("unknown graph shape " + shape);
+    }
+}
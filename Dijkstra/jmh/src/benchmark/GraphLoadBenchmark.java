@@ -0,0 +1,83 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utility.CSRGraph;
+import utility.FastGraphLoader;
+import utility.GraphInput;
+import utility.GraphSnapshot;
+import utility.SimpleGraph;
+import utility.Vertex;
+
+/**
+ * GraphLoadBenchmark.java
+ * Time to load a graph file: GraphInput.LoadSimpleGraph and LoadCSRGraph,
+ * FastGraphLoader, and opening the GraphSnapshot of the same graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphLoadBenchmark {
+
+    @Param({ "grid-900", "grid-10000", "grid-90000", "road-900", "road-10000", "road-90000",
+            "random-1000", "random-10000", "random-100000", "rmat-1024", "rmat-16384", "rmat-131072" })
+    public String shape;
+
+    private String path;
+
+    private String snapshot;
+
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        console = GraphFiles.mute();
+        path = GraphFiles.file(shape);
+        snapshot = GraphFiles.snapshot(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public Hashtable<String, Vertex> loadSimpleGraph() {
+        return GraphInput.LoadSimpleGraph(new SimpleGraph(), path);
+    }
+
+    @Benchmark
+    public CSRGraph loadCSRGraph() {
+        return GraphInput.LoadCSRGraph(path);
+    }
+
+    @Benchmark
+    public CSRGraph fastGraphLoader() {
+        return FastGraphLoader.loadCSRGraph(path);
+    }
+
+    @Benchmark
+    public GraphSnapshot openSnapshot() throws IOException {
+        return GraphSnapshot.open(snapshot);
+    }
+}
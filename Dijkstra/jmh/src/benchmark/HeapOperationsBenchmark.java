@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pathfinder.BinaryHeap;
+import pathfinder.DijkstraNode;
+import pathfinder.EmptyHeapException;
+
+/**
+ * HeapOperationsBenchmark.java
+ * BinaryHeap insert, decreaseKey and deleteMin on n DijkstraNodes.  Keys
+ * and decreaseKey targets are fixed per size, so every invocation does the
+ * same work: insert everything, lower 2n keys, drain the heap.
+ * VertexQueueBenchmark runs the same sequence on the int-id queues.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeapOperationsBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int n;
+
+    private double[] keys;
+
+    private int[] targets;
+
+    private double[] factors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        keys = new double[n];
+        targets = new int[2 * n];
+        factors = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextDouble() * n;
+        }
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(n);
+            factors[i] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public Object binaryHeapInsertDeleteMin() throws EmptyHeapException {
+        BinaryHeap heap = new BinaryHeap();
+        for (int i = 0; i < n; i++) {
+            heap.insert(new DijkstraNode(null, keys[i]));
+        }
+        Object last = null;
+        while (!heap.isEmpty()) {
+            last = heap.deleteMin();
+        }
+        return last;
+    }
+
+    @Benchmark
+    public Object binaryHeapDecreaseKey() throws EmptyHeapException {
+        BinaryHeap heap = new BinaryHeap();
+        DijkstraNode[] nodes = new DijkstraNode[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new DijkstraNode(null, keys[i]);
+            heap.insert(nodes[i]);
+        }
+        for (int i = 0; i < targets.length; i++) {
+            DijkstraNode node = nodes[targets[i]];
+            node.setWeight(node.getWeight() * factors[i]);
+            heap.decreaseKey(node.getHeapLocation());
+        }
+        Object last = null;
+        while (!heap.isEmpty()) {
+            last = heap.deleteMin();
+        }
+        return last;
+    }
+}
@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pathfinder.CSRDijkstra;
+import pathfinder.Dijkstra;
+import pathfinder.SearchTreeCache;
+import pathfinder.ShortestPath;
+import utility.GraphInput;
+import utility.GraphSnapshot;
+import utility.SimpleGraph;
+import utility.Vertex;
+
+/**
+ * QueryBenchmark.java
+ * Point-to-point query latency: Dijkstra.findDijkstra on the SimpleGraph,
+ * CSRDijkstra on the CSR graph and on its memory-mapped snapshot, and
+ * SearchTreeCache on sessions that ask many destinations from a few
+ * origins.  All of them cycle through the same origin and destination
+ * pairs.  Each representation is a state of its own, so a run only loads
+ * the ones its benchmarks use.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    /** origins of the session queries, whose searches SearchTreeCache retains */
+    private static final int SESSION_ORIGINS = 8;
+
+    /**
+     * The graph file of the shape being measured.
+     */
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({ "grid-900", "grid-10000", "grid-90000", "road-900", "road-10000", "road-90000",
+                "random-1000", "random-10000", "random-100000", "rmat-1024", "rmat-16384", "rmat-131072" })
+        public String shape;
+
+        String path;
+
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            // findDijkstra prints every path it finds
+            console = GraphFiles.mute();
+            path = GraphFiles.file(shape);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * The legacy SimpleGraph and its vertices in insertion order, which is
+     * also the CSR id order, so both searches run the same pairs.
+     */
+    @State(Scope.Thread)
+    public static class Legacy {
+        SimpleGraph graph;
+        Vertex[] vertices;
+        int[] pairs;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Input input) {
+            graph = new SimpleGraph();
+            GraphInput.LoadSimpleGraph(graph, input.path);
+            vertices = new Vertex[graph.numVertices()];
+            int i = 0;
+            for (Iterator<Vertex> it = graph.vertices(); it.hasNext(); ) {
+                vertices[i++] = it.next();
+            }
+            pairs = GraphFiles.pairs(vertices.length);
+        }
+    }
+
+    /**
+     * A CSRDijkstra on the CSR graph loaded from the file.
+     */
+    @State(Scope.Thread)
+    public static class Csr {
+        CSRDijkstra search;
+        int[] pairs;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Input input) {
+            search = new CSRDijkstra(GraphInput.LoadCSRGraph(input.path));
+            pairs = GraphFiles.pairs(search.getGraph().numVertices());
+        }
+    }
+
+    /**
+     * A CSRDijkstra on the memory-mapped snapshot of the file.
+     */
+    @State(Scope.Thread)
+    public static class Snapshot {
+        CSRDijkstra search;
+        int[] pairs;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Input input) throws IOException {
+            search = new CSRDijkstra(GraphSnapshot.open(GraphFiles.snapshot(input.path)));
+            pairs = GraphFiles.pairs(search.getGraph().numVertices());
+        }
+    }
+
+    /**
+     * A SearchTreeCache keeping the searches of the session origins.
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        SearchTreeCache cache;
+        int[] pairs;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(Input input) {
+            cache = new SearchTreeCache(GraphInput.LoadCSRGraph(input.path), SESSION_ORIGINS, 256L << 20);
+            pairs = GraphFiles.pairs(cache.getGraph().numVertices());
+        }
+    }
+
+    @Benchmark
+    public Object findDijkstra(Legacy state) {
+        // the same reset Dijkstra.main does before every query
+        for (Vertex v : state.vertices) {
+            v.setData(null);
+        }
+        Vertex origin = state.vertices[state.pairs[state.next]];
+        Vertex destination = state.vertices[state.pairs[state.next + 1]];
+        state.next = (state.next + 2) % state.pairs.length;
+        Dijkstra.findDijkstra(origin, destination, state.graph);
+        return destination.getData();
+    }
+
+    @Benchmark
+    public ShortestPath csrDijkstra(Csr state) {
+        ShortestPath path = state.search.findPath(state.pairs[state.next], state.pairs[state.next + 1]);
+        state.next = (state.next + 2) % state.pairs.length;
+        return path;
+    }
+
+    @Benchmark
+    public ShortestPath csrDijkstraSnapshot(Snapshot state) {
+        ShortestPath path = state.search.findPath(state.pairs[state.next], state.pairs[state.next + 1]);
+        state.next = (state.next + 2) % state.pairs.length;
+        return path;
+    }
+
+    @Benchmark
+    public ShortestPath searchTreeCache(Session state) {
+        ShortestPath path = state.cache.shortestPath(state.pairs[state.next] % SESSION_ORIGINS,
+                state.pairs[state.next + 1]);
+        state.next = (state.next + 2) % state.pairs.length;
+        return path;
+    }
+}
@@ -0,0 +1,144 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import pathfinder.QueryEngine;
+import pathfinder.QueryServer;
+import utility.GraphInput;
+import utility.IndexedGraph;
+
+/**
+ * ServerLoadBenchmark.java
+ * QueryServer throughput on one box.  The server runs in the benchmark JVM
+ * and every benchmark thread is one client connection that keeps PIPELINE
+ * PATH requests between random vertices outstanding.  The score is answers
+ * per second counted on the client side; -t changes the connection count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(ServerLoadBenchmark.CONNECTIONS)
+@Fork(1)
+public class ServerLoadBenchmark {
+
+    /** client connections, one per benchmark thread */
+    static final int CONNECTIONS = 64;
+
+    /** requests each connection writes before reading the answers */
+    private static final int PIPELINE = 16;
+
+    /** connections the server accepts, enough for any -t a run is likely to ask for */
+    private static final int MAX_CONNECTIONS = 1024;
+
+    /**
+     * The server and the graph it answers on.
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({ "grid-10000" })
+        public String shape;
+
+        IndexedGraph graph;
+
+        QueryServer server;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            // the loader reports progress on System.out
+            PrintStream console = GraphFiles.mute();
+            try {
+                graph = GraphInput.LoadCSRGraph(GraphFiles.file(shape));
+            } finally {
+                System.setOut(console);
+            }
+            int cores = Runtime.getRuntime().availableProcessors();
+            server = new QueryServer(new QueryEngine(graph), 0, MAX_CONNECTIONS, 4 * cores);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            server.close();
+        }
+    }
+
+    /**
+     * The connection of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        Socket socket;
+
+        BufferedReader in;
+
+        Writer out;
+
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(Server server, ThreadParams thread) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.server.getPort());
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            random = new Random(thread.getThreadIndex());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                out.write("QUIT\n");
+                out.flush();
+            } finally {
+                socket.close();
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public String pipelinedPaths(Server server, Client client) throws IOException {
+        int n = server.graph.numVertices();
+        for (int i = 0; i < PIPELINE; i++) {
+            client.out.write("PATH " + server.graph.vertexName(client.random.nextInt(n)) + " "
+                    + server.graph.vertexName(client.random.nextInt(n)) + "\n");
+        }
+        client.out.flush();
+        String last = null;
+        for (int i = 0; i < PIPELINE; i++) {
+            last = client.in.readLine();
+            if (last == null) {
+                throw new IOException("server closed the connection");
+            }
+        }
+        return last;
+    }
+}
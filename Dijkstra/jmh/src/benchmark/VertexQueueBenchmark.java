@@ -0,0 +1,104 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pathfinder.FibonacciHeap;
+import pathfinder.IndexedDaryHeap;
+import pathfinder.LazyDeletionHeap;
+import pathfinder.PairingHeap;
+import pathfinder.VertexQueue;
+
+/**
+ * VertexQueueBenchmark.java
+ * The VertexQueue implementations on the operation mix a Dijkstra search
+ * produces: every vertex is inserted once, 2n keys are lowered and the queue
+ * is drained with deleteMin.  IndexedDaryHeap runs with arity 2, 4 and 8.
+ * Keys and decreaseKey targets are fixed per size, the same ones
+ * HeapOperationsBenchmark gives BinaryHeap, so the two compare directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertexQueueBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int n;
+
+    @Param({ "dary-2", "dary-4", "dary-8", "lazy-deletion", "pairing", "fibonacci" })
+    public String queue;
+
+    private double[] keys;
+
+    private int[] targets;
+
+    private double[] factors;
+
+    private VertexQueue heap;
+
+    private double[] current;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        keys = new double[n];
+        targets = new int[2 * n];
+        factors = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextDouble() * n;
+        }
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(n);
+            factors[i] = random.nextDouble();
+        }
+        heap = create(queue, n);
+        current = new double[n];
+    }
+
+    private static VertexQueue create(String queue, int n) {
+        if (queue.startsWith("dary-")) {
+            return new IndexedDaryHeap(n, Integer.parseInt(queue.substring(5)));
+        } else if (queue.equals("lazy-deletion")) {
+            return new LazyDeletionHeap(n);
+        } else if (queue.equals("pairing")) {
+            return new PairingHeap(n);
+        } else if (queue.equals("fibonacci")) {
+            return new FibonacciHeap(n);
+        }
+        throw new IllegalArgumentException("unknown queue " + queue);
+    }
+
+    @Benchmark
+    public int insertDecreaseKeyDeleteMin() {
+        System.arraycopy(keys, 0, current, 0, n);
+        for (int i = 0; i < n; i++) {
+            heap.insert(i, current[i]);
+        }
+        for (int i = 0; i < targets.length; i++) {
+            int v = targets[i];
+            current[v] *= factors[i];
+            heap.decreaseKey(v, current[v]);
+        }
+        int last = -1;
+        while (!heap.isEmpty()) {
+            last = heap.deleteMin();
+        }
+        return last;
+    }
+}
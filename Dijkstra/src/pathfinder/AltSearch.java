@@ -0,0 +1,126 @@
+package pathfinder;
+/**
+ * AltSearch.java
+ * A* search with landmark lower bounds (ALT).  The heap orders vertices by
+ * their distance from the origin plus a lower bound on their remaining
+ * distance to the destination, taken from the Landmarks tables, so the search
+ * settles vertices in the direction of the destination first.
+ * The bounds are consistent, so every vertex is normally settled once; a
+ * vertex that rounding lets improve after being settled is simply queued again.
+ * The bounds only hold for the weights the landmarks were computed on, so a
+ * query throws IllegalStateException once the graph version has moved past them.
+ * An instance is reusable for any number of queries but must not be shared
+ * between threads.
+ */
+
+import utility.IndexedGraph;
+
+public class AltSearch {
+
+    private final IndexedGraph graph;
+
+    private final Landmarks landmarks;
+
+    /** distances, path pointers and heap of the current query */
+    private final SearchSpace space;
+
+    /** lower bound to the destination of each reached vertex, valid if reached */
+    private final double[] potential;
+
+    /** landmark distances of the current destination */
+    private final double[] targetRow;
+
+    /**
+     * Constructor.
+     * @param graph the graph to search
+     * @param landmarks landmark tables computed on the same graph
+     */
+    public AltSearch(IndexedGraph graph, Landmarks landmarks) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.space = new SearchSpace(graph.numVertices(), 4);
+        this.potential = new double[graph.numVertices()];
+        this.targetRow = new double[landmarks.size()];
+    }
+
+    /**
+     * Gets the graph this search runs on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the shortest path between two vertices.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     * @throws IllegalStateException if the weights have changed since the
+     *         landmarks were computed
+     */
+    public ShortestPath findPath(int origin, int destination) {
+        IndexedGraph view = graph.frozen();
+        landmarks.checkVersion(view);
+        space.start();
+        landmarks.row(destination, targetRow);
+        double start = landmarks.lowerBound(origin, targetRow);
+        if (start == Double.POSITIVE_INFINITY) {
+            // a landmark reaches one of the two but not the other
+            return ShortestPath.notFound(origin, destination);
+        }
+        space.reach(origin, 0, origin);
+        potential[origin] = start;
+        space.heap.insert(origin, start);
+
+        while (!space.heap.isEmpty()) {
+            int picked = space.heap.deleteMin();
+            space.settled++;
+            if (picked == destination) {
+                return new ShortestPath(origin, destination, space.distance(destination),
+                        space.pathTo(origin, destination), space.settled, 0);
+            }
+            relax(view, picked);
+        }
+        return ShortestPath.notFound(origin, destination, space.settled, 0);
+    }
+
+    /**
+     * Gets the number of vertices reached but not settled when the last
+     * query stopped.
+     * @return the vertices left in the heap
+     */
+    int heapSize() {
+        return space.heap.size();
+    }
+
+    /**
+     * Updates the distance of every vertex adjacent to a settled vertex.
+     * Vertices the landmarks prove to be cut off from the destination are never queued.
+     * @param view    the graph as the query saw it when it started
+     * @param u the vertex that was just removed from the heap
+     */
+    private void relax(IndexedGraph view, int u) {
+        double base = space.distance(u);
+        for (int arc = view.arcStart(u), end = view.arcEnd(u); arc < end; arc++) {
+            int v = view.arcTarget(arc);
+            double newWeight = base + view.arcWeight(arc);
+            if (!space.isReached(v)) {
+                double bound = landmarks.lowerBound(v, targetRow);
+                if (bound == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                space.reach(v, newWeight, u);
+                potential[v] = bound;
+                space.heap.insert(v, newWeight + bound);
+            } else if (newWeight < space.distance(v)) {
+                space.reach(v, newWeight, u);
+                if (space.heap.contains(v)) {
+                    space.heap.decreaseKey(v, newWeight + potential[v]);
+                } else {
+                    space.heap.insert(v, newWeight + potential[v]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package pathfinder;
+/**
+ * BatchQuery.java
+ * Answers a file of shortest path queries without prompting, for runs of
+ * millions of queries that Dijkstra.main could never get through.  Each
+ * input line holds an origin and a destination name separated by blanks or
+ * a comma; each name is looked up once per line and every query then runs
+ * on vertex ids.  Queries are read in blocks, answered in parallel with one
+ * search context per worker, and written through one large buffer as CSV
+ * or JSON lines, in input order.  The run time and throughput, from the
+ * first query read to the last result written, are reported on System.err.
+ *
+ * Usage: java pathfinder.BatchQuery [-f csv|jsonl] [-t threads] [-o outputfile]
+ *        graphfile [queryfile]
+ * The graph file is an edge list as GraphInput reads it, or a GraphSnapshot
+ * if its name ends in .snapshot.  Queries come from stdin and results go to
+ * stdout unless files are given.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.StringTokenizer;
+
+import utility.FastGraphLoader;
+import utility.GraphSnapshot;
+import utility.IndexedGraph;
+
+public class BatchQuery {
+
+    /**
+     * The output formats.
+     */
+    public enum Format {
+        /** a header line, then origin,destination,status,distance,path with the path joined by ';' */
+        CSV,
+
+        /** one JSON object per line with origin, destination, status, distance and path */
+        JSONL
+    }
+
+    /** queries read, answered and written together */
+    private static final int BLOCK = 1 << 14;
+
+    /** queries a worker claims at a time */
+    private static final int GRAIN = 64;
+
+    /** size of the input and output buffers */
+    private static final int BUFFER = 1 << 20;
+
+    private final QueryEngine engine;
+
+    private final Format format;
+
+    private final int threads;
+
+    /**
+     * Constructor.
+     * @param engine    answers the queries
+     * @param format    the output format
+     * @param threads   number of worker threads, 1 to run on the calling thread
+     */
+    public BatchQuery(QueryEngine engine, Format format, int threads) {
+        this.engine = engine;
+        this.format = format;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Format format = Format.CSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        String graphFile = null;
+        String queryFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-f") && i + 1 < args.length) {
+                format = Format.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("-t") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                output = args[++i];
+            } else if (graphFile == null) {
+                graphFile = args[i];
+            } else {
+                queryFile = args[i];
+            }
+        }
+        if (graphFile == null) {
+            System.err.println("Usage: java pathfinder.BatchQuery [-f csv|jsonl] [-t threads]"
+                    + " [-o outputfile] graphfile [queryfile]");
+            return;
+        }
+
+        // the loaders report progress on System.out, which may be carrying the results
+        PrintStream console = System.out;
+        System.setOut(System.err);
+        IndexedGraph graph;
+        try {
+            graph = graphFile.endsWith(".snapshot") ? GraphSnapshot.open(graphFile)
+                    : FastGraphLoader.loadCSRGraph(graphFile, threads);
+        } finally {
+            System.setOut(console);
+        }
+        if (graph == null) {
+            return;
+        }
+
+        InputStream in = (queryFile != null) ? new FileInputStream(queryFile) : System.in;
+        OutputStream out = (output != null) ? new FileOutputStream(output) : console;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER);
+        try {
+            long start = System.nanoTime();
+            long count = new BatchQuery(new QueryEngine(graph), format, threads).run(reader, writer);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.println("Answered " + count + " queries in " + Math.round(seconds * 1000)
+                    + " ms: " + Math.round(count / Math.max(seconds, 1e-9)) + " queries/s on "
+                    + threads + " threads.");
+        } finally {
+            reader.close();
+            if (output != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Answers every query read from a reader and writes the results in input
+     * order.  Blank lines are skipped; every other line gets one result, an
+     * error status if the line cannot be answered.  The writer is flushed
+     * but not closed.
+     * @param in    the query lines
+     * @param out   receives the results
+     * @return the number of results written
+     * @throws IOException if reading or writing fails
+     */
+    public long run(BufferedReader in, Writer out) throws IOException {
+        final IndexedGraph graph = engine.getGraph();
+        final String[] lines = new String[BLOCK];
+        Workers workers = new Workers(threads);
+        final SearchContext[] contexts = new SearchContext[workers.size()];
+        long count = 0;
+        try {
+            if (format == Format.CSV) {
+                out.write("origin,destination,status,distance,path\n");
+            }
+            int size;
+            while ((size = readBlock(in, lines)) > 0) {
+                workers.forRange(size, GRAIN, new Workers.Body() {
+                    public void run(int worker, int from, int to) {
+                        if (contexts[worker] == null) {
+                            contexts[worker] = engine.acquire();
+                        }
+                        StringBuilder text = new StringBuilder(128);
+                        for (int i = from; i < to; i++) {
+                            text.setLength(0);
+                            answer(graph, contexts[worker], lines[i], text);
+                            lines[i] = text.toString();
+                        }
+                    }
+                });
+                for (int i = 0; i < size; i++) {
+                    out.write(lines[i]);
+                }
+                count += size;
+            }
+            out.flush();
+        } finally {
+            for (SearchContext context : contexts) {
+                if (context != null) {
+                    engine.release(context);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads up to lines.length non-blank lines.
+     * @return the number read, 0 at the end of the input
+     */
+    private static int readBlock(BufferedReader in, String[] lines) throws IOException {
+        int size = 0;
+        String line;
+        while (size < lines.length && (line = in.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                lines[size++] = line;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Answers one query line and appends its result line.
+     */
+    private void answer(IndexedGraph graph, SearchContext context, String line, StringBuilder text) {
+        StringTokenizer tokens = new StringTokenizer(line, " \t,");
+        if (tokens.countTokens() != 2) {
+            append(text, line, "", "invalid query", null, graph);
+            return;
+        }
+        String originName = tokens.nextToken();
+        String destinationName = tokens.nextToken();
+        int origin = graph.vertexId(originName);
+        int destination = graph.vertexId(destinationName);
+        if (origin < 0 || destination < 0) {
+            append(text, originName, destinationName, "unknown vertex", null, graph);
+            return;
+        }
+        ShortestPath path = context.findPath(origin, destination, SearchMode.DIJKSTRA);
+        append(text, originName, destinationName, path.isFound() ? "ok" : "no path", path, graph);
+    }
+
+    /**
+     * Appends one result line in the output format.
+     * @param path  the path found, or null if the query could not be run
+     */
+    private void append(StringBuilder text, String origin, String destination, String status,
+            ShortestPath path, IndexedGraph graph) {
+        boolean found = path != null && path.isFound();
+        if (format == Format.CSV) {
+            csv(text, origin).append(',');
+            csv(text, destination).append(',').append(status).append(',');
+            if (found) {
+                text.append(path.getDistance()).append(',');
+                StringBuilder names = new StringBuilder();
+                for (int v : path.getVertices()) {
+                    if (names.length() > 0) {
+                        names.append(';');
+                    }
+                    names.append(graph.vertexName(v));
+                }
+                csv(text, names.toString());
+            } else {
+                text.append(',');
+            }
+        } else {
+            json(text.append("{\"origin\":"), origin);
+            json(text.append(",\"destination\":"), destination);
+            json(text.append(",\"status\":"), status);
+            if (found) {
+                text.append(",\"distance\":").append(path.getDistance()).append(",\"path\":[");
+                int[] vertices = path.getVertices();
+                for (int i = 0; i < vertices.length; i++) {
+                    if (i > 0) {
+                        text.append(',');
+                    }
+                    json(text, String.valueOf(graph.vertexName(vertices[i])));
+                }
+                text.append("]}");
+            } else {
+                text.append(",\"distance\":null,\"path\":null}");
+            }
+        }
+        text.append('\n');
+    }
+
+    /**
+     * Appends a CSV field, quoted if it holds a comma, quote or line break.
+     */
+    private static StringBuilder csv(StringBuilder text, String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                && field.indexOf('\r') < 0) {
+            return text.append(field);
+        }
+        return text.append('"').append(field.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Appends a JSON string literal.
+     */
+    private static StringBuilder json(StringBuilder text, String value) {
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < 0x20) {
+                text.append(String.format("\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        return text.append('"');
+    }
+}
@@ -0,0 +1,174 @@
+package pathfinder;
+/**
+ * BidirectionalDijkstra.java
+ * Point-to-point Dijkstra that grows one ball from the origin and one from the
+ * destination until they meet.  Graphs built from SimpleGraph are undirected,
+ * so the backward search walks the same arcs as the forward one.
+ *
+ * Every time an arc joins a vertex reached from one side to a vertex reached
+ * from the other, the length of that origin-destination path is a candidate
+ * for the best meeting distance.  Once the smallest keys of both heaps add up
+ * to at least the best candidate, no undiscovered path can be shorter and the
+ * search stops.  The distance reported is summed along the final path in
+ * order from the origin, the same way CSRDijkstra sums it.  Both directions
+ * read the weights from the frozen() view taken when the query starts.
+ *
+ * The distance always equals the one Dijkstra.printShortestPath prints, but
+ * when several shortest paths tie, the vertices may not: the two searches
+ * meet on whichever tied path they reach first, while a one-way search keeps
+ * the first one it settles.  Callers that need the exact path of the legacy
+ * search should query with QueueType.BINARY_HEAP, which settles vertices in
+ * the same order.
+ *
+ * An instance is reusable for any number of queries but must not be shared
+ * between threads.
+ */
+
+import java.util.Arrays;
+
+import utility.IndexedGraph;
+
+public class BidirectionalDijkstra {
+
+    private final IndexedGraph graph;
+
+    /** the search from the origin */
+    private final SearchSpace forward;
+
+    /** the search from the destination */
+    private final SearchSpace backward;
+
+    /** length of the shortest origin-destination path seen so far */
+    private double best;
+
+    /** the vertex where that path crosses from the forward to the backward ball */
+    private int meeting;
+
+    /**
+     * Constructor.
+     * @param graph the graph to search
+     */
+    public BidirectionalDijkstra(IndexedGraph graph) {
+        this(graph, 4);
+    }
+
+    /**
+     * Constructor.
+     * @param graph the graph to search
+     * @param arity number of children per heap node, one of 2, 4 or 8
+     */
+    public BidirectionalDijkstra(IndexedGraph graph, int arity) {
+        this.graph = graph;
+        this.forward = new SearchSpace(graph.numVertices(), arity);
+        this.backward = new SearchSpace(graph.numVertices(), arity);
+    }
+
+    /**
+     * Gets the graph this search runs on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the shortest path between two vertices.  The result carries the
+     * number of vertices settled in each direction.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath findPath(int origin, int destination) {
+        IndexedGraph view = graph.frozen();
+        forward.start();
+        backward.start();
+        forward.reach(origin, 0, origin);
+        forward.heap.insert(origin, 0);
+        backward.reach(destination, 0, destination);
+        backward.heap.insert(destination, 0);
+        best = (origin == destination) ? 0 : Double.POSITIVE_INFINITY;
+        meeting = origin;
+
+        // when either side runs dry its whole component has been scanned,
+        // so every path to the other side has already been seen
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            double forwardMin = forward.heap.minKey();
+            double backwardMin = backward.heap.minKey();
+            if (forwardMin + backwardMin >= best) {
+                break;
+            }
+            if (forwardMin <= backwardMin) {
+                step(view, forward, backward);
+            } else {
+                step(view, backward, forward);
+            }
+        }
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return ShortestPath.notFound(origin, destination, forward.settled, backward.settled);
+        }
+        int[] path = buildPath(origin, destination);
+        return new ShortestPath(origin, destination, ShortestPath.pathLength(view, path), path,
+                forward.settled, backward.settled);
+    }
+
+    /**
+     * Gets the number of vertices reached but not settled, in both
+     * directions, when the last query stopped.
+     * @return the vertices left in the two heaps
+     */
+    int heapSize() {
+        return forward.heap.size() + backward.heap.size();
+    }
+
+    /**
+     * Settles the closest vertex of one side and relaxes its arcs, checking
+     * every reached neighbour against the other side for a shorter meeting.
+     * @param view    the graph as the query saw it when it started
+     * @param side  the search to advance
+     * @param other the search in the opposite direction
+     */
+    private void step(IndexedGraph view, SearchSpace side, SearchSpace other) {
+        int u = side.heap.deleteMin();
+        side.settled++;
+        double base = side.distance(u);
+        for (int arc = view.arcStart(u), end = view.arcEnd(u); arc < end; arc++) {
+            int v = view.arcTarget(arc);
+            double newWeight = base + view.arcWeight(arc);
+            double oldWeight = side.distance(v);
+            if (newWeight < oldWeight) {
+                side.reach(v, newWeight, u);
+                if (oldWeight == Double.POSITIVE_INFINITY) {
+                    side.heap.insert(v, newWeight);
+                } else {
+                    side.heap.decreaseKey(v, newWeight);
+                }
+            }
+            if (other.isReached(v)) {
+                double through = side.distance(v) + other.distance(v);
+                if (through < best) {
+                    best = through;
+                    meeting = v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins the forward path to the meeting vertex with the backward path from it.
+     */
+    private int[] buildPath(int origin, int destination) {
+        int[] head = forward.pathTo(origin, meeting);
+        int length = head.length;
+        for (int v = meeting; v != destination; v = backward.parent(v)) {
+            length++;
+        }
+        int[] vertices = Arrays.copyOf(head, length);
+        int next = head.length;
+        for (int v = meeting; v != destination; ) {
+            v = backward.parent(v);
+            vertices[next++] = v;
+        }
+        return vertices;
+    }
+}
@@ -2,6 +2,8 @@ package pathfinder;
 /**
  * A binary minheap of comparable objects.
  * Modified by Yong Yu Wang to support updating the weight of DijkstraNodes
+ * Elements that implement HeapLocatable are told their position in the heap
+ * array, so their keys can be decreased; any other Comparable can be stored too.
  * @author Donald Chinn
  * @author Yong Yu Wang
  * @version September 19, 2003
@@ -16,6 +18,7 @@ public class BinaryHeap {
      */
 	private Comparable[] elements;
     private int size;       // index of last element in the heap
+    SearchStats stats;      // counts the operations of one query, or null
     
     // Constructor
     public BinaryHeap() {
@@ -66,6 +69,15 @@ public class BinaryHeap {
     }
     
     
+    /**
+     * Return the number of elements in the heap.
+     * @return  the heap size
+     */
+    int size() {
+        return size;
+    }
+    
+    
     /**
      * Insert an object into the heap.
      * @param key   a key
@@ -84,9 +96,10 @@ public class BinaryHeap {
         
         size++;
         elements[size] = key;
-        // saves the location of the key in the heap into the node
-        ((DijkstraNode) key).setHeapLocation(size);
         percolateUp(size);
+        if (SearchStats.ENABLED && stats != null) {
+            stats.inserted(size);
+        }
     }
     
     
@@ -100,6 +113,9 @@ public class BinaryHeap {
             elements[1] = elements[size];
             size--;
             percolateDown(1);
+            if (SearchStats.ENABLED && stats != null) {
+                stats.deleteMins++;
+            }
             return returnValue;
             
         } else {
@@ -117,16 +133,14 @@ public class BinaryHeap {
         while (index > 1) {
             if (temp.compareTo(elements[index/2]) < 0) {
                 elements[index] = elements[index/2];
-                // saves the location of the key in the heap into the node
-                ((DijkstraNode) elements[index]).setHeapLocation(index);
+                track(index);
                 index = index / 2;
             } else {
                 break;
             }
         }
         elements[index] = temp;
-        // saves the location of the key in the heap into the node
-        ((DijkstraNode) elements[index]).setHeapLocation(index);
+        track(index);
     }
     
     
@@ -148,8 +162,7 @@ public class BinaryHeap {
             // the two children
             if (elements[child].compareTo(temp) < 0) {
                 elements[index] = elements[child];
-                // saves the location of the key in the heap into the node
-                ((DijkstraNode) elements[index]).setHeapLocation(index);
+                track(index);
 
                 index = child;
             } else {
@@ -157,16 +170,28 @@ public class BinaryHeap {
             }
         }
         elements[index] = temp; 
-        // saves the location of the key in the heap into the node
-        ((DijkstraNode) elements[index]).setHeapLocation(index);
+        track(index);
     }
     
     /**
-     * Changes the weight of the DijkstraNode to a new value and reorders heap structure
-     * @param index location of the DijkstraNode to make changes to
-     * @param newWeight the new weight value of the node
+     * Saves the location of the key at an index in the heap into the key,
+     * if it keeps track of its location.
+     * @param index     an index into the heap array
+     */
+    private void track(int index) {
+        if (elements[index] instanceof HeapLocatable) {
+            ((HeapLocatable) elements[index]).setHeapLocation(index);
+        }
+    }
+    
+    /**
+     * Restores heap order after the key of an element has been lowered in place.
+     * @param index location of the element, as given by HeapLocatable.getHeapLocation()
      */
     public void decreaseKey(int index) {
     	percolateUp(index);
+        if (SearchStats.ENABLED && stats != null) {
+            stats.decreaseKeys++;
+        }
     }
 }
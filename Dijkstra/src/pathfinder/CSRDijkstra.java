@@ -0,0 +1,237 @@
+package pathfinder;
+/**
+ * CSRDijkstra.java
+ * Dijkstra's algorithm on an IndexedGraph.
+ * Vertices are plain int ids, so the search keeps its distances, path pointers
+ * and heap positions in primitive arrays instead of DijkstraNode objects, and
+ * relaxing a vertex is a linear walk over its arc range.  Each query reads
+ * the weights from the graph's frozen() view taken when it starts, so it sees
+ * one set of weights even while they change.
+ * An instance owns its scratch arrays and can be reused for any number of
+ * queries on the same graph, but must not be shared between threads.
+ */
+
+import java.util.Arrays;
+
+import utility.IndexedGraph;
+import utility.KeyboardReader;
+
+public class CSRDijkstra {
+
+    private final IndexedGraph graph;
+
+    /** distances, path pointers and heap of the current query */
+    private final SearchSpace space;
+
+    /** the target query in which each vertex was last marked as a target, allocated on first use */
+    private int[] targetStamp;
+
+    /** the generation of the current target query, never 0 */
+    private int targetGeneration;
+
+    /**
+     * Constructor.
+     * @param graph the graph to search
+     */
+    public CSRDijkstra(IndexedGraph graph) {
+        this(graph, 4);
+    }
+
+    /**
+     * Constructor.  With arity 2 the heap breaks ties exactly like BinaryHeap,
+     * so among equally short paths the one Dijkstra.printShortestPath prints is chosen.
+     * @param graph the graph to search
+     * @param arity number of children per heap node, one of 2, 4 or 8
+     */
+    public CSRDijkstra(IndexedGraph graph, int arity) {
+        this.graph = graph;
+        this.space = new SearchSpace(graph.numVertices(), arity);
+    }
+
+    /**
+     * Constructor with a given queue of reached vertices, e.g. a DialQueue or
+     * RadixHeap for a graph with integer weights.
+     * @param graph the graph to search
+     * @param queue an empty queue with room for every vertex id of the graph
+     */
+    public CSRDijkstra(IndexedGraph graph, VertexQueue queue) {
+        this.graph = graph;
+        this.space = new SearchSpace(graph.numVertices(), queue);
+    }
+
+    /**
+     * Loads a graph into CSR form and answers queries interactively,
+     * the same way Dijkstra.main does.
+     * @param args
+     */
+    public static void main(String[] args) {
+        System.out.print("Please enter the full path and file name for the input data: ");
+        IndexedGraph graph = utility.GraphInput.LoadCSRGraph(KeyboardReader.readString());
+        CSRDijkstra search = new CSRDijkstra(graph);
+        String response = "y";
+        while (response.toLowerCase().equals("y")) {
+            int origin = readVertex(graph, "Enter the name of the origin: ");
+            int destination = readVertex(graph, "Enter the name of the destination: ");
+            search.findPath(origin, destination).print(graph);
+            System.out.print("Continue? (y/n): ");
+            response = KeyboardReader.readString();
+            while (!response.toLowerCase().equals("y") && !response.toLowerCase().equals("n")) {
+                System.out.print("Please enter y or n: ");
+                response = KeyboardReader.readString();
+            }
+        }
+    }
+
+    /**
+     * Prompts until the user enters the name of a vertex in the graph.
+     */
+    private static int readVertex(IndexedGraph graph, String prompt) {
+        System.out.print(prompt);
+        int v = graph.vertexId(KeyboardReader.readString());
+        while (v < 0) {
+            System.out.print("That name does not exist. Try again: ");
+            v = graph.vertexId(KeyboardReader.readString());
+        }
+        return v;
+    }
+
+    /**
+     * Gets the graph this search runs on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the shortest path between two vertices.  The search stops as soon
+     * as the destination is removed from the heap.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath findPath(int origin, int destination) {
+        IndexedGraph view = graph.frozen();
+        space.start();
+        space.reach(origin, 0, origin);
+        space.heap.insert(origin, 0);
+
+        while (!space.heap.isEmpty()) {
+            int picked = space.heap.deleteMin();
+            space.settled++;
+            if (picked == destination) {
+                return new ShortestPath(origin, destination, space.distance(destination),
+                        space.pathTo(origin, destination), space.settled, 0);
+            }
+            relax(view, picked);
+        }
+        return ShortestPath.notFound(origin, destination, space.settled, 0);
+    }
+
+    /**
+     * Gets the number of vertices reached but not settled when the last
+     * query stopped.
+     * @return the vertices left in the heap
+     */
+    int heapSize() {
+        return space.heap.size();
+    }
+
+    /**
+     * Runs the search from an origin until every reachable vertex is settled
+     * and copies out the distance and path pointer of every vertex.
+     * @param origin    the starting vertex id
+     * @param distances receives the distance of each vertex, POSITIVE_INFINITY if unreachable
+     * @param parents   receives the previous vertex of each vertex, -1 if unreachable
+     *                  and the origin itself for the origin; may be null
+     * @return the number of vertices reached, including the origin
+     */
+    public int computeDistances(int origin, double[] distances, int[] parents) {
+        IndexedGraph view = graph.frozen();
+        space.start();
+        space.reach(origin, 0, origin);
+        space.heap.insert(origin, 0);
+        while (!space.heap.isEmpty()) {
+            int picked = space.heap.deleteMin();
+            space.settled++;
+            relax(view, picked);
+        }
+        for (int v = 0; v < distances.length; v++) {
+            boolean reached = space.isReached(v);
+            distances[v] = space.distance(v);
+            if (parents != null) {
+                parents[v] = reached ? space.parent(v) : -1;
+            }
+        }
+        return space.settled;
+    }
+
+    /**
+     * Runs the search from an origin until every given target is settled, or
+     * every reachable vertex is, and copies out the distances of the targets.
+     * Targets may repeat.
+     * @param origin    the starting vertex id
+     * @param targets   the vertex ids to find distances to
+     * @param distances receives the distance of targets[i] at distances[offset + i],
+     *                  POSITIVE_INFINITY if unreachable
+     * @param offset    index in distances of the first target's distance
+     * @return the number of vertices settled
+     */
+    public int computeDistances(int origin, int[] targets, double[] distances, int offset) {
+        if (targetStamp == null) {
+            targetStamp = new int[graph.numVertices()];
+        }
+        targetGeneration++;
+        if (targetGeneration == 0) {
+            Arrays.fill(targetStamp, 0);
+            targetGeneration = 1;
+        }
+        int remaining = 0;
+        for (int t : targets) {
+            if (targetStamp[t] != targetGeneration) {
+                targetStamp[t] = targetGeneration;
+                remaining++;
+            }
+        }
+
+        IndexedGraph view = graph.frozen();
+        space.start();
+        space.reach(origin, 0, origin);
+        space.heap.insert(origin, 0);
+        while (remaining > 0 && !space.heap.isEmpty()) {
+            int picked = space.heap.deleteMin();
+            space.settled++;
+            if (targetStamp[picked] == targetGeneration) {
+                remaining--;
+            }
+            relax(view, picked);
+        }
+        for (int i = 0; i < targets.length; i++) {
+            distances[offset + i] = space.distance(targets[i]);
+        }
+        return space.settled;
+    }
+
+    /**
+     * Updates the distance of every vertex adjacent to a settled vertex.
+     * Settled vertices never pass the comparison because weights are not negative.
+     * @param view    the graph as the query saw it when it started
+     * @param u the vertex that was just removed from the heap
+     */
+    private void relax(IndexedGraph view, int u) {
+        double base = space.distance(u);
+        for (int arc = view.arcStart(u), end = view.arcEnd(u); arc < end; arc++) {
+            int v = view.arcTarget(arc);
+            double newWeight = base + view.arcWeight(arc);
+            double oldWeight = space.distance(v);
+            if (newWeight < oldWeight) {
+                space.reach(v, newWeight, u);
+                if (oldWeight == Double.POSITIVE_INFINITY) {
+                    space.heap.insert(v, newWeight);
+                } else {
+                    space.heap.decreaseKey(v, newWeight);
+                }
+            }
+        }
+    }
+}
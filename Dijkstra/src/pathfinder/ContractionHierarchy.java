@@ -0,0 +1,596 @@
+package pathfinder;
+/**
+ * ContractionHierarchy.java
+ * Contraction Hierarchies preprocessing for an IndexedGraph.
+ *
+ * Vertices are contracted one after another, cheapest first.  Contracting v
+ * removes it from the remaining graph; for every pair of remaining neighbours
+ * u, w whose shortest connection runs through v, a shortcut u-w with weight
+ * c(u,v) + c(v,w) is added so that distances between the remaining vertices
+ * do not change.  A bounded witness search from u decides whether such a
+ * connection exists without v.  The order in which vertices are contracted is
+ * their rank; the result keeps, for every vertex, the arcs to its neighbours of
+ * higher rank at the time it was contracted, and CHQuery answers queries with
+ * a bidirectional search that only ever climbs to higher ranks.
+ *
+ * The cost of a vertex is twice its edge difference (shortcuts added minus
+ * edges removed) plus the number of its neighbours already contracted and its
+ * level, one more than the highest level among those neighbours; the last two
+ * terms spread contraction evenly over the graph and keep the hierarchy flat.
+ * Costs are estimated with cheaper witness searches than the ones that decide
+ * which shortcuts are actually inserted.  Contraction runs in rounds: every round
+ * takes the vertices whose cost is lower than that of all their remaining
+ * neighbours, an independent set, and contracts them together on all worker
+ * threads.  Witness searches in a round avoid every vertex of the round, so
+ * the shortcuts of one vertex never rely on a path through another.  Costs are
+ * updated lazily: a selected vertex whose fresh cost has grown past a
+ * neighbour's is put back for a later round, and the neighbours of contracted
+ * vertices are re-evaluated after each round.
+ *
+ * The graph is treated as undirected, like every graph built from SimpleGraph;
+ * parallel edges are merged to the lightest one and self loops are dropped.
+ * The hierarchy holds for the weights it was built on and records their
+ * graph version; once the version moves, CHQuery refuses to use it and it
+ * has to be built again.
+ */
+
+import java.util.Arrays;
+
+import utility.IndexedGraph;
+import utility.Versioned;
+
+public class ContractionHierarchy {
+
+    /** most vertices a single witness search may settle before giving up */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    /** settle limit of the witness searches that only estimate a contraction cost */
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+
+    private final IndexedGraph graph;
+
+    /** the version of the graph whose weights the hierarchy was built on */
+    private final long version;
+
+    /** contraction order of each vertex, 0 is contracted first */
+    private final int[] rank;
+
+    /** offsets into the upward arc arrays, one per vertex plus a sentinel */
+    private final int[] upOffsets;
+
+    /** the higher-ranked end of each upward arc */
+    private final int[] upTargets;
+
+    /** the weight of each upward arc */
+    private final double[] upWeights;
+
+    /** the vertex a shortcut bypasses, or -1 for an edge of the original graph */
+    private final int[] upMiddles;
+
+    private ContractionHierarchy(IndexedGraph graph, long version, int[] rank, int[] upOffsets,
+                                 int[] upTargets, double[] upWeights, int[] upMiddles) {
+        this.graph = graph;
+        this.version = version;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+    }
+
+    /**
+     * Contracts every vertex of a graph.
+     * @param graph the graph to preprocess
+     * @param threads   number of worker threads
+     * @return the hierarchy
+     */
+    public static ContractionHierarchy build(IndexedGraph graph, int threads) {
+        return new Builder(graph, new Workers(threads)).build();
+    }
+
+    /**
+     * Gets the graph the hierarchy was built on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Takes a frozen() view of the graph for one query, checking that its
+     * weights are still the ones the hierarchy was built on.
+     * @return the view
+     * @throws IllegalStateException if the graph version has moved since the build
+     */
+    IndexedGraph frozenGraph() {
+        IndexedGraph view = graph.frozen();
+        long current = Versioned.of(view);
+        if (current != version) {
+            throw new IllegalStateException("the hierarchy was built at graph version " + version
+                    + " but the graph is at version " + current + "; build it again");
+        }
+        return view;
+    }
+
+    /**
+     * Gets the contraction rank of a vertex.
+     * @param v a vertex id
+     * @return the rank, 0 for the vertex contracted first
+     */
+    public int getRank(int v) {
+        return rank[v];
+    }
+
+    /**
+     * Gets the number of upward arcs that are shortcuts rather than original edges.
+     * @return the shortcut count
+     */
+    public int numShortcuts() {
+        int count = 0;
+        for (int middle : upMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the total number of upward arcs, original edges and shortcuts.
+     * @return the upward arc count
+     */
+    public int numUpwardArcs() {
+        return upTargets.length;
+    }
+
+    int upStart(int v) {
+        return upOffsets[v];
+    }
+
+    int upEnd(int v) {
+        return upOffsets[v + 1];
+    }
+
+    int upTarget(int arc) {
+        return upTargets[arc];
+    }
+
+    double upWeight(int arc) {
+        return upWeights[arc];
+    }
+
+    /**
+     * Finds the upward arc joining two adjacent vertices of the hierarchy.
+     * It is stored with whichever of the two was contracted first.
+     * @return the arc index
+     */
+    private int findArc(int a, int b) {
+        int low = (rank[a] < rank[b]) ? a : b;
+        int high = (low == a) ? b : a;
+        for (int arc = upOffsets[low], end = upOffsets[low + 1]; arc < end; arc++) {
+            if (upTargets[arc] == high) {
+                return arc;
+            }
+        }
+        throw new IllegalStateException("no arc between " + a + " and " + b);
+    }
+
+    /**
+     * Expands a sequence of hierarchy vertices, each adjacent to the next,
+     * into the vertices of the original graph it stands for.
+     * @param path  consecutive vertices joined by upward arcs or shortcuts
+     * @param length    number of entries of path to use
+     * @return the fully unpacked path
+     */
+    int[] unpack(int[] path, int length) {
+        int[] out = new int[Math.max(16, length * 2)];
+        int size = 0;
+        out[size++] = path[0];
+        // explicit stack of pending (from, to) pairs, so deep shortcut nesting cannot overflow
+        int[] stack = new int[32];
+        for (int i = 0; i + 1 < length; i++) {
+            int top = 0;
+            stack[top++] = path[i];
+            stack[top++] = path[i + 1];
+            while (top > 0) {
+                int to = stack[--top];
+                int from = stack[--top];
+                int middle = upMiddles[findArc(from, to)];
+                if (middle < 0) {
+                    if (size == out.length) {
+                        out = Arrays.copyOf(out, size * 2);
+                    }
+                    out[size++] = to;
+                } else {
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    // push the second half first so the first half is expanded first
+                    stack[top++] = middle;
+                    stack[top++] = to;
+                    stack[top++] = from;
+                    stack[top++] = middle;
+                }
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    /**
+     * The mutable state of one preprocessing run.
+     */
+    private static class Builder {
+
+        /** the graph the hierarchy is for, whose weights may change later */
+        private final IndexedGraph source;
+
+        /** the weights of source when the build started, which it reads throughout */
+        private final IndexedGraph graph;
+        private final Workers workers;
+        private final int n;
+
+        /** neighbours of each vertex that are not contracted yet */
+        private final int[][] adjTargets;
+        private final double[][] adjWeights;
+        private final int[][] adjMiddles;
+        private final int[] degree;
+
+        private final boolean[] contracted;
+
+        /** true for the vertices being contracted in the current round */
+        private final boolean[] inRound;
+
+        private final int[] contractedNeighbours;
+
+        /** one more than the highest level of any contracted neighbour */
+        private final int[] level;
+
+        /** current contraction cost of each vertex */
+        private final int[] priority;
+
+        /** one witness search space per worker */
+        private final SearchSpace[] witness;
+
+        private final int[] rank;
+
+        /** upward arcs recorded per vertex when it is contracted */
+        private final int[][] upTargets;
+        private final double[][] upWeights;
+        private final int[][] upMiddles;
+
+        Builder(IndexedGraph graph, Workers workers) {
+            this.source = graph;
+            this.graph = graph.frozen();
+            this.workers = workers;
+            this.n = graph.numVertices();
+            this.adjTargets = new int[n][];
+            this.adjWeights = new double[n][];
+            this.adjMiddles = new int[n][];
+            this.degree = new int[n];
+            this.contracted = new boolean[n];
+            this.inRound = new boolean[n];
+            this.contractedNeighbours = new int[n];
+            this.level = new int[n];
+            this.priority = new int[n];
+            this.witness = new SearchSpace[workers.size()];
+            this.rank = new int[n];
+            this.upTargets = new int[n][];
+            this.upWeights = new double[n][];
+            this.upMiddles = new int[n][];
+        }
+
+        ContractionHierarchy build() {
+            for (int v = 0; v < n; v++) {
+                int capacity = Math.max(2, graph.arcEnd(v) - graph.arcStart(v));
+                adjTargets[v] = new int[capacity];
+                adjWeights[v] = new double[capacity];
+                adjMiddles[v] = new int[capacity];
+            }
+            for (int v = 0; v < n; v++) {
+                for (int arc = graph.arcStart(v), end = graph.arcEnd(v); arc < end; arc++) {
+                    int w = graph.arcTarget(arc);
+                    if (w != v) {
+                        addArc(v, w, graph.arcWeight(arc), -1);
+                    }
+                }
+            }
+
+            final int[] all = new int[n];
+            for (int v = 0; v < n; v++) {
+                all[v] = v;
+            }
+            updatePriorities(all, n);
+
+            int[] selected = new int[n];
+            int[] touched = new int[n];
+            boolean[] isTouched = new boolean[n];
+            final Shortcuts[] shortcuts = new Shortcuts[n];
+            // vertices not contracted yet, compacted after every round
+            int[] alive = all;
+            int remaining = n;
+            int nextRank = 0;
+            while (remaining > 0) {
+                // independent set of local minima of the contraction cost
+                int count = 0;
+                int kept = 0;
+                for (int i = 0; i < remaining; i++) {
+                    int v = alive[i];
+                    if (!contracted[v]) {
+                        alive[kept++] = v;
+                        if (isLocalMinimum(v)) {
+                            selected[count++] = v;
+                        }
+                    }
+                }
+                remaining = kept;
+                for (int i = 0; i < count; i++) {
+                    inRound[selected[i]] = true;
+                }
+
+                final int[] round = selected;
+                workers.forRange(count, 16, new Workers.Body() {
+                    public void run(int worker, int from, int to) {
+                        for (int i = from; i < to; i++) {
+                            int v = round[i];
+                            shortcuts[v] = findShortcuts(worker, v, WITNESS_SETTLE_LIMIT);
+                        }
+                    }
+                });
+
+                int touchedCount = 0;
+                for (int i = 0; i < count; i++) {
+                    int v = selected[i];
+                    inRound[v] = false;
+                    Shortcuts s = shortcuts[v];
+                    shortcuts[v] = null;
+                    int fresh = cost(v, s.count);
+                    if (fresh > priority[v]) {
+                        // lazy update: the cost went up, contract v only if it is still the cheapest
+                        priority[v] = fresh;
+                        if (!isLocalMinimum(v)) {
+                            continue;
+                        }
+                    }
+                    contract(v, s);
+                    rank[v] = nextRank++;
+                    for (int j = 0; j < s.neighbourCount; j++) {
+                        int u = s.neighbours[j];
+                        if (!isTouched[u]) {
+                            isTouched[u] = true;
+                            touched[touchedCount++] = u;
+                        }
+                    }
+                }
+                for (int i = 0; i < touchedCount; i++) {
+                    isTouched[touched[i]] = false;
+                }
+                updatePriorities(touched, touchedCount);
+                if (nextRank == n) {
+                    break;
+                }
+            }
+            return assemble();
+        }
+
+        /**
+         * Determines whether a vertex is cheaper than all its remaining
+         * neighbours, breaking ties by vertex id.
+         */
+        private boolean isLocalMinimum(int v) {
+            int p = priority[v];
+            int[] targets = adjTargets[v];
+            for (int i = 0; i < degree[v]; i++) {
+                int u = targets[i];
+                if (priority[u] < p || (priority[u] == p && u < v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int cost(int v, int shortcutCount) {
+            return 2 * (shortcutCount - degree[v]) + contractedNeighbours[v] + level[v];
+        }
+
+        /**
+         * Recomputes the contraction cost of the given vertices in parallel.
+         */
+        private void updatePriorities(final int[] vertices, int count) {
+            workers.forRange(count, 64, new Workers.Body() {
+                public void run(int worker, int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        int v = vertices[i];
+                        if (!contracted[v]) {
+                            priority[v] = cost(v,
+                                    findShortcuts(worker, v, ESTIMATE_SETTLE_LIMIT).count);
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Works out the shortcuts contracting v would need, without changing the graph.
+         */
+        private Shortcuts findShortcuts(int worker, int v, int settleLimit) {
+            if (witness[worker] == null) {
+                witness[worker] = new SearchSpace(n, 4);
+            }
+            SearchSpace space = witness[worker];
+            int d = degree[v];
+            int[] targets = adjTargets[v];
+            double[] weights = adjWeights[v];
+            Shortcuts s = new Shortcuts(targets, d);
+
+            for (int i = 0; i + 1 < d; i++) {
+                int u = targets[i];
+                double limit = 0;
+                for (int j = i + 1; j < d; j++) {
+                    limit = Math.max(limit, weights[i] + weights[j]);
+                }
+                witnessSearch(space, u, v, limit, settleLimit);
+                for (int j = i + 1; j < d; j++) {
+                    double via = weights[i] + weights[j];
+                    if (space.distance(targets[j]) > via) {
+                        s.add(u, targets[j], via);
+                    }
+                }
+            }
+            return s;
+        }
+
+        /**
+         * Dijkstra from source over the remaining graph, avoiding the vertex
+         * being contracted and everything else in the current round, up to a
+         * distance limit and a settle limit.
+         */
+        private void witnessSearch(SearchSpace space, int source, int avoid, double limit,
+                                   int settleLimit) {
+            space.start();
+            space.reach(source, 0, source);
+            space.heap.insert(source, 0);
+            while (!space.heap.isEmpty() && space.settled < settleLimit) {
+                if (space.heap.minKey() > limit) {
+                    break;
+                }
+                int u = space.heap.deleteMin();
+                space.settled++;
+                double base = space.distance(u);
+                int[] targets = adjTargets[u];
+                double[] weights = adjWeights[u];
+                for (int i = 0, d = degree[u]; i < d; i++) {
+                    int w = targets[i];
+                    if (w == avoid || inRound[w]) {
+                        continue;
+                    }
+                    double newWeight = base + weights[i];
+                    double oldWeight = space.distance(w);
+                    if (newWeight < oldWeight) {
+                        space.reach(w, newWeight, u);
+                        if (oldWeight == Double.POSITIVE_INFINITY) {
+                            space.heap.insert(w, newWeight);
+                        } else {
+                            space.heap.decreaseKey(w, newWeight);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes v from the graph: records its upward arcs, inserts its
+         * shortcuts and drops it from its neighbours' lists.
+         */
+        private void contract(int v, Shortcuts s) {
+            int d = degree[v];
+            upTargets[v] = Arrays.copyOf(adjTargets[v], d);
+            upWeights[v] = Arrays.copyOf(adjWeights[v], d);
+            upMiddles[v] = Arrays.copyOf(adjMiddles[v], d);
+            contracted[v] = true;
+
+            for (int i = 0; i < d; i++) {
+                int u = adjTargets[v][i];
+                removeArc(u, v);
+                contractedNeighbours[u]++;
+                level[u] = Math.max(level[u], level[v] + 1);
+            }
+            for (int i = 0; i < s.count; i++) {
+                addArc(s.from[i], s.to[i], s.weight[i], v);
+                addArc(s.to[i], s.from[i], s.weight[i], v);
+            }
+            adjTargets[v] = null;
+            adjWeights[v] = null;
+            adjMiddles[v] = null;
+            degree[v] = 0;
+        }
+
+        /**
+         * Adds an arc u-w, or lowers the weight of an existing one.
+         */
+        private void addArc(int u, int w, double weight, int middle) {
+            int[] targets = adjTargets[u];
+            int d = degree[u];
+            for (int i = 0; i < d; i++) {
+                if (targets[i] == w) {
+                    if (weight < adjWeights[u][i]) {
+                        adjWeights[u][i] = weight;
+                        adjMiddles[u][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (d == targets.length) {
+                adjTargets[u] = Arrays.copyOf(targets, d * 2);
+                adjWeights[u] = Arrays.copyOf(adjWeights[u], d * 2);
+                adjMiddles[u] = Arrays.copyOf(adjMiddles[u], d * 2);
+            }
+            adjTargets[u][d] = w;
+            adjWeights[u][d] = weight;
+            adjMiddles[u][d] = middle;
+            degree[u] = d + 1;
+        }
+
+        private void removeArc(int u, int w) {
+            int[] targets = adjTargets[u];
+            int last = degree[u] - 1;
+            for (int i = 0; i <= last; i++) {
+                if (targets[i] == w) {
+                    targets[i] = targets[last];
+                    adjWeights[u][i] = adjWeights[u][last];
+                    adjMiddles[u][i] = adjMiddles[u][last];
+                    degree[u] = last;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Packs the recorded upward arcs into CSR arrays.
+         */
+        private ContractionHierarchy assemble() {
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] = offsets[v] + upTargets[v].length;
+            }
+            int[] targets = new int[offsets[n]];
+            double[] weights = new double[offsets[n]];
+            int[] middles = new int[offsets[n]];
+            for (int v = 0; v < n; v++) {
+                System.arraycopy(upTargets[v], 0, targets, offsets[v], upTargets[v].length);
+                System.arraycopy(upWeights[v], 0, weights, offsets[v], upWeights[v].length);
+                System.arraycopy(upMiddles[v], 0, middles, offsets[v], upMiddles[v].length);
+            }
+            return new ContractionHierarchy(source, Versioned.of(graph), rank, offsets, targets, weights,
+                    middles);
+        }
+    }
+
+    /**
+     * The shortcuts needed to contract one vertex, plus its neighbour list at that time.
+     */
+    private static class Shortcuts {
+        final int[] neighbours;
+        final int neighbourCount;
+        int[] from = new int[4];
+        int[] to = new int[4];
+        double[] weight = new double[4];
+        int count;
+
+        Shortcuts(int[] neighbours, int neighbourCount) {
+            this.neighbours = Arrays.copyOf(neighbours, neighbourCount);
+            this.neighbourCount = neighbourCount;
+        }
+
+        void add(int u, int w, double via) {
+            if (count == from.length) {
+                from = Arrays.copyOf(from, count * 2);
+                to = Arrays.copyOf(to, count * 2);
+                weight = Arrays.copyOf(weight, count * 2);
+            }
+            from[count] = u;
+            to[count] = w;
+            weight[count] = via;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package pathfinder;
+/**
+ * DeltaStepping.java
+ * Parallel one-to-all shortest paths by delta-stepping (Meyer and Sanders).
+ * Reached vertices are kept in buckets of width delta by tentative distance.
+ * The lowest non-empty bucket is emptied in phases.  Each phase relaxes the
+ * light arcs (weight at most delta) of all its vertices in parallel, which can
+ * refill the same bucket.  Once the bucket stays empty, the heavy arcs of
+ * every vertex removed from it are relaxed in parallel, and the search moves
+ * on to the next bucket.  Arcs are split into light and heavy by their weight
+ * as they are read, so the graph's arrays are used as they are, and a bucket
+ * only gets a list once a vertex is queued in it.
+ * Distances are lowered with a compare-and-set on their bit pattern, which
+ * orders non-negative doubles the same way as their values.  The result is the
+ * same least fixed point Dijkstra computes, bit for bit, because adding a
+ * non-negative weight never rounds below the smaller operand.  Path pointers
+ * are derived from the final distances afterwards, so they may pick a
+ * different predecessor than Dijkstra where two paths are equally short.
+ * Each run reads the weights from the frozen() view taken when it starts.
+ * The ring of buckets is sized for the heaviest arc when the instance is
+ * built, and again for a run once the graph version has moved since.
+ * An instance only holds read-only data and may be shared between threads.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import utility.IndexedGraph;
+import utility.Versioned;
+
+public class DeltaStepping {
+
+    /** largest number of buckets a delta may need before it is rejected as too small */
+    private static final int MAX_BUCKETS = 1 << 22;
+
+    /** frontier vertices one worker claims at a time */
+    private static final int GRAIN = 256;
+
+    /** bit pattern of POSITIVE_INFINITY, larger than that of every finite distance */
+    private static final long UNREACHED = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private final IndexedGraph graph;
+
+    private final double delta;
+
+    /** size of the circular bucket array, enough to cover delta plus the heaviest arc */
+    private final int numBuckets;
+
+    /** the graph version numBuckets was computed at */
+    private final long version;
+
+    /**
+     * Constructor with a bucket width chosen from the edge weights.
+     * @param graph the graph to search
+     */
+    public DeltaStepping(IndexedGraph graph) {
+        this(graph, chooseDelta(graph));
+    }
+
+    /**
+     * Constructor.
+     * @param graph the graph to search
+     * @param delta bucket width; arcs no heavier than this are light
+     * @throws IllegalArgumentException if delta is not positive or would need
+     *         too many buckets for the heaviest arc
+     */
+    public DeltaStepping(IndexedGraph graph, double delta) {
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+        IndexedGraph view = graph.frozen();
+        double maxWeight = view.maxArcWeight();
+        double span = maxWeight / delta + 3;
+        if (span > MAX_BUCKETS) {
+            throw new IllegalArgumentException("delta " + delta + " is too small for arcs of weight "
+                    + maxWeight);
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.numBuckets = (int) span;
+        this.version = Versioned.of(view);
+    }
+
+    /**
+     * Chooses a bucket width from the edge weights: the heaviest arc divided by
+     * the average degree, but no less than the lightest positive arc.  Each
+     * light phase then touches about one heaviest arc's worth of distance per
+     * vertex, as Meyer and Sanders suggest.
+     * @param graph a graph
+     * @return a positive bucket width
+     */
+    public static double chooseDelta(IndexedGraph graph) {
+        int m = graph.numArcs();
+        double maxWeight = 0;
+        double minWeight = Double.POSITIVE_INFINITY;
+        for (int arc = 0; arc < m; arc++) {
+            double weight = graph.arcWeight(arc);
+            maxWeight = Math.max(maxWeight, weight);
+            if (weight > 0) {
+                minWeight = Math.min(minWeight, weight);
+            }
+        }
+        if (maxWeight == 0) {
+            return 1;
+        }
+        double degree = Math.max(1.0, (double) m / graph.numVertices());
+        return Math.max(maxWeight / degree, minWeight);
+    }
+
+    /**
+     * Gets the graph this search runs on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the bucket width.
+     * @return delta
+     */
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Computes the shortest path tree of an origin, one worker thread per
+     * available processor.
+     * @param origin    the starting vertex id
+     * @return the shortest path tree of the origin
+     */
+    public ShortestPathTree compute(int origin) {
+        return compute(origin, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Computes the shortest path tree of an origin.
+     * @param origin    the starting vertex id
+     * @param threads   number of worker threads, 1 to run on the calling thread
+     * @return the shortest path tree of the origin
+     * @throws IllegalStateException if the weights have changed since the
+     *         instance was built and delta is now too small for the heaviest arc
+     */
+    public ShortestPathTree compute(int origin, int threads) {
+        IndexedGraph view = graph.frozen();
+        int buckets = numBuckets;
+        if (Versioned.of(view) != version) {
+            // a heavier arc may need a longer ring than the one sized at construction
+            double maxWeight = view.maxArcWeight();
+            double span = maxWeight / delta + 3;
+            if (span > MAX_BUCKETS) {
+                throw new IllegalStateException("delta " + delta + " is too small for arcs of weight "
+                        + maxWeight);
+            }
+            buckets = (int) span;
+        }
+        return new Run(view, buckets, new Workers(threads)).compute(origin);
+    }
+
+    /**
+     * Gets the bucket of a distance.
+     */
+    private long bucketOf(double distance) {
+        return (long) (distance / delta);
+    }
+
+    /**
+     * The state of one compute call.
+     */
+    private class Run {
+
+        /** the graph as the run saw it when it started */
+        private final IndexedGraph view;
+
+        private final Workers workers;
+
+        /** bit pattern of the tentative distance of each vertex */
+        private final AtomicLongArray distance;
+
+        /**
+         * vertices queued per bucket, indexed by bucket modulo the ring size;
+         * may hold stale entries.  A slot stays null until something is queued in it.
+         */
+        private final IntList[] buckets;
+
+        /** vertices each worker lowered the distance of in the current parallel loop */
+        private final IntList[] lowered;
+
+        /** the phase in which each vertex was last put in the frontier */
+        private final int[] frontierMark;
+
+        private int phase;
+
+        /** vertices of the current phase */
+        private int[] frontier = new int[16];
+
+        private int frontierSize;
+
+        /** vertices removed from the current bucket, whose heavy arcs are still to be relaxed */
+        private IntList removed = new IntList();
+
+        /** the bucket in which each vertex was last removed, plus one */
+        private final long[] removedMark;
+
+        private final Workers.Body lightPhase = new Workers.Body() {
+            public void run(int worker, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int v = frontier[i];
+                    relax(worker, v, true);
+                }
+            }
+        };
+
+        private final Workers.Body heavyPhase = new Workers.Body() {
+            public void run(int worker, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int v = frontier[i];
+                    relax(worker, v, false);
+                }
+            }
+        };
+
+        Run(IndexedGraph view, int numBuckets, Workers workers) {
+            int n = view.numVertices();
+            this.view = view;
+            this.buckets = new IntList[numBuckets];
+            this.workers = workers;
+            this.distance = new AtomicLongArray(n);
+            this.lowered = new IntList[workers.size()];
+            for (int w = 0; w < lowered.length; w++) {
+                lowered[w] = new IntList();
+            }
+            this.frontierMark = new int[n];
+            this.removedMark = new long[n];
+        }
+
+        ShortestPathTree compute(int origin) {
+            int n = view.numVertices();
+            for (int v = 0; v < n; v++) {
+                distance.lazySet(v, UNREACHED);
+            }
+            distance.set(origin, Double.doubleToRawLongBits(0.0));
+            queue(0, origin);
+
+            long current = 0;
+            int pending = 1;
+            while (pending > 0) {
+                IntList bucket = buckets[slot(current)];
+                while (bucket != null && bucket.size > 0) {
+                    while (bucket.size > 0) {
+                        pending -= bucket.size;
+                        takeFrontier(bucket, current);
+                        workers.forRange(frontierSize, GRAIN, lightPhase);
+                        pending += distribute();
+                    }
+                    // heavy arcs cannot lead back into this bucket, except by rounding
+                    frontier = removed.toArray(frontier);
+                    frontierSize = removed.size;
+                    removed.size = 0;
+                    workers.forRange(frontierSize, GRAIN, heavyPhase);
+                    pending += distribute();
+                }
+                current++;
+            }
+            return buildTree(origin);
+        }
+
+        /**
+         * Moves the live vertices of a bucket into the frontier, once each,
+         * and records them as removed from the bucket.
+         */
+        private void takeFrontier(IntList bucket, long current) {
+            phase++;
+            if (phase == 0) {
+                Arrays.fill(frontierMark, 0);
+                phase = 1;
+            }
+            if (frontier.length < bucket.size) {
+                frontier = new int[Math.max(bucket.size, frontier.length * 2)];
+            }
+            frontierSize = 0;
+            for (int i = 0; i < bucket.size; i++) {
+                int v = bucket.items[i];
+                if (frontierMark[v] != phase && bucketOf(value(v)) == current) {
+                    frontierMark[v] = phase;
+                    frontier[frontierSize++] = v;
+                    if (removedMark[v] != current + 1) {
+                        removedMark[v] = current + 1;
+                        removed.add(v);
+                    }
+                }
+            }
+            bucket.size = 0;
+        }
+
+        /**
+         * Queues every vertex lowered in the last parallel loop in the bucket of
+         * its new distance.
+         * @return the number of entries queued
+         */
+        private int distribute() {
+            int queued = 0;
+            for (IntList list : lowered) {
+                for (int i = 0; i < list.size; i++) {
+                    int v = list.items[i];
+                    queue(bucketOf(value(v)), v);
+                }
+                queued += list.size;
+                list.size = 0;
+            }
+            return queued;
+        }
+
+        /**
+         * Adds a vertex to a bucket, giving the bucket's slot a list the first
+         * time it is used.
+         */
+        private void queue(long bucket, int v) {
+            int slot = slot(bucket);
+            IntList list = buckets[slot];
+            if (list == null) {
+                list = new IntList();
+                buckets[slot] = list;
+            }
+            list.add(v);
+        }
+
+        /**
+         * Relaxes the light or the heavy arcs of a vertex, recording the
+         * targets it improves.
+         */
+        private void relax(int worker, int u, boolean light) {
+            double base = value(u);
+            IntList out = lowered[worker];
+            for (int arc = view.arcStart(u), end = view.arcEnd(u); arc < end; arc++) {
+                double weight = view.arcWeight(arc);
+                if ((weight <= delta) != light) {
+                    continue;
+                }
+                int v = view.arcTarget(arc);
+                long bits = Double.doubleToRawLongBits(base + weight);
+                long old = distance.get(v);
+                while (bits < old) {
+                    if (distance.compareAndSet(v, old, bits)) {
+                        out.add(v);
+                        break;
+                    }
+                    old = distance.get(v);
+                }
+            }
+        }
+
+        private double value(int v) {
+            return Double.longBitsToDouble(distance.get(v));
+        }
+
+        private int slot(long bucket) {
+            return (int) (bucket % buckets.length);
+        }
+
+        /**
+         * Copies out the distances and picks for every reached vertex a
+         * neighbour whose distance plus the arc weight gives exactly its own.
+         * A neighbour with a strictly smaller distance is taken where there is
+         * one; vertices only reached through zero-weight arcs are then linked
+         * outward from the vertices already in the tree, so no cycle can form.
+         */
+        private ShortestPathTree buildTree(final int origin) {
+            int n = view.numVertices();
+            final double[] dist = new double[n];
+            final int[] parent = new int[n];
+            for (int v = 0; v < n; v++) {
+                dist[v] = value(v);
+            }
+            workers.forRange(n, 4096, new Workers.Body() {
+                public void run(int worker, int from, int to) {
+                    for (int v = from; v < to; v++) {
+                        parent[v] = -1;
+                        if (v == origin) {
+                            parent[v] = origin;
+                        } else if (dist[v] != Double.POSITIVE_INFINITY) {
+                            for (int arc = view.arcStart(v), end = view.arcEnd(v); arc < end; arc++) {
+                                int u = view.arcTarget(arc);
+                                if (dist[u] < dist[v] && dist[u] + view.arcWeight(arc) == dist[v]) {
+                                    parent[v] = u;
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+
+            int reached = 0;
+            IntList queue = new IntList();
+            for (int v = 0; v < n; v++) {
+                if (dist[v] != Double.POSITIVE_INFINITY) {
+                    reached++;
+                    if (parent[v] >= 0) {
+                        queue.add(v);
+                    }
+                }
+            }
+            if (queue.size < reached) {
+                for (int head = 0; head < queue.size; head++) {
+                    int u = queue.items[head];
+                    for (int arc = view.arcStart(u), end = view.arcEnd(u); arc < end; arc++) {
+                        int v = view.arcTarget(arc);
+                        if (parent[v] < 0 && dist[v] != Double.POSITIVE_INFINITY
+                                && dist[u] + view.arcWeight(arc) == dist[v]) {
+                            parent[v] = u;
+                            queue.add(v);
+                        }
+                    }
+                }
+            }
+            return new ShortestPathTree(origin, dist, parent, reached);
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static class IntList {
+
+        int[] items = new int[16];
+
+        int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        /**
+         * Copies the items into an array, reusing it if it is large enough.
+         */
+        int[] toArray(int[] into) {
+            if (into.length < size) {
+                into = new int[Math.max(size, into.length * 2)];
+            }
+            System.arraycopy(items, 0, into, 0, size);
+            return into;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package pathfinder;
+/**
+ * DialQueue.java
+ * Dial's bucket queue for non-negative integer keys.
+ * There is one bucket per key value in a window of maxSpread + 1 keys, used
+ * circularly, and each bucket is a doubly linked list threaded through arrays
+ * indexed by vertex id.  Insert and decreaseKey are O(1); deleteMin scans
+ * forward from the last minimum, which only ever moves up, so a whole
+ * Dijkstra search costs O(m + n + D) where D is the largest distance settled.
+ * The queue is monotone: every key must be at least the last key removed and
+ * at most that key plus maxSpread, which Dijkstra satisfies on a graph whose
+ * heaviest arc is maxSpread.  Keys are passed as doubles and must be whole numbers.
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class DialQueue implements VertexQueue {
+
+    /** key of a vertex that is not in the queue, and end of a bucket list */
+    private static final int NONE = -1;
+
+    private final int numBuckets;
+
+    /** first vertex of each bucket, or NONE */
+    private final int[] head;
+
+    /** next vertex in the same bucket, or NONE */
+    private final int[] next;
+
+    /** previous vertex in the same bucket, or NONE if first */
+    private final int[] prev;
+
+    /** key of each vertex in the queue, or NONE */
+    private final long[] keys;
+
+    /** no key in the queue is smaller than this */
+    private long cursor;
+
+    private int size;
+
+    /** true until the first insert after construction or clear, which sets cursor */
+    private boolean fresh = true;
+
+    /**
+     * Constructor.
+     * @param capacity  number of distinct vertex ids the queue can contain
+     * @param maxSpread largest difference between two keys in the queue at
+     *                  the same time, e.g. the heaviest arc weight of the graph
+     */
+    public DialQueue(int capacity, long maxSpread) {
+        if (maxSpread < 0 || maxSpread >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxSpread out of range: " + maxSpread);
+        }
+        this.numBuckets = (int) maxSpread + 1;
+        this.head = new int[numBuckets];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(keys, NONE);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return keys[vertex] != NONE;
+    }
+
+    public double getKey(int vertex) {
+        return keys[vertex];
+    }
+
+    public double minKey() {
+        return advance();
+    }
+
+    public void insert(int vertex, double key) {
+        if (keys[vertex] != NONE) {
+            throw new IllegalArgumentException("vertex " + vertex + " is already in the queue");
+        }
+        long k = RadixHeap.integerKey(key);
+        if (fresh) {
+            cursor = k;
+            fresh = false;
+        }
+        checkWindow(k);
+        link(vertex, k);
+        size++;
+    }
+
+    public void decreaseKey(int vertex, double newKey) {
+        long old = keys[vertex];
+        if (old == NONE) {
+            throw new IllegalArgumentException("vertex " + vertex + " is not in the queue");
+        }
+        long k = RadixHeap.integerKey(newKey);
+        if (k > old) {
+            throw new IllegalArgumentException("new key is larger than the current key");
+        }
+        checkWindow(k);
+        unlink(vertex);
+        link(vertex, k);
+    }
+
+    public int deleteMin() {
+        advance();
+        int min = head[slot(cursor)];
+        unlink(min);
+        keys[min] = NONE;
+        size--;
+        return min;
+    }
+
+    /**
+     * Remove every vertex from the queue.  This walks every bucket, so it
+     * costs O(maxSpread + size()).
+     */
+    public void clear() {
+        fresh = true;
+        if (size == 0) {
+            return;
+        }
+        for (int b = 0; b < numBuckets; b++) {
+            for (int v = head[b]; v != NONE; v = next[v]) {
+                keys[v] = NONE;
+            }
+            head[b] = NONE;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the cursor to the first non-empty bucket.
+     * @return  the minimum key
+     */
+    private long advance() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        while (head[slot(cursor)] == NONE) {
+            cursor++;
+        }
+        return cursor;
+    }
+
+    private void checkWindow(long key) {
+        if (key < cursor || key - cursor >= numBuckets) {
+            throw new IllegalArgumentException("key " + key + " outside the window ["
+                    + cursor + ", " + (cursor + numBuckets - 1) + "]");
+        }
+    }
+
+    private int slot(long key) {
+        return (int) (key % numBuckets);
+    }
+
+    private void link(int vertex, long key) {
+        int b = slot(key);
+        int first = head[b];
+        keys[vertex] = key;
+        prev[vertex] = NONE;
+        next[vertex] = first;
+        if (first != NONE) {
+            prev[first] = vertex;
+        }
+        head[b] = vertex;
+    }
+
+    private void unlink(int vertex) {
+        int before = prev[vertex];
+        int after = next[vertex];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head[slot(keys[vertex])] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+    }
+}
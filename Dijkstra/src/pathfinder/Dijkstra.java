@@ -14,6 +14,7 @@ import java.util.Set;
 import java.util.Stack;
 
 import utility.Edge;
+import utility.FlightEvents;
 import utility.GraphInput;
 import utility.KeyboardReader;
 import utility.SimpleGraph;
@@ -23,6 +24,15 @@ public class Dijkstra {
 	
 	static BinaryHeap dijkstraHeap = new BinaryHeap();
 	static Set<Vertex> visitedVertexes = new HashSet<>();
+	// statistics of the running query, or null
+	static SearchStats queryStats;
+	
+	static {
+	    // register the JMX totals at startup, not at the first query
+	    if (SearchStats.ENABLED) {
+	        SearchMetrics.global();
+	    }
+	}
 	
 	/**
 	 * The main function, starts the program by calling start()
@@ -99,9 +109,19 @@ public class Dijkstra {
 	 * @param start	the starting vertex in the path
 	 * @param end	the destination vertex in the path
 	 * @param graph	the SimpleGraph ADT containing all the vertex and edge data
+	 * @return the statistics of the search if SearchStats.ENABLED, null otherwise
 	 */
-	public static void findDijkstra(Vertex start, Vertex end, SimpleGraph graph) {
+	public static SearchStats findDijkstra(Vertex start, Vertex end, SimpleGraph graph) {
+	    FlightEvents.Event event = QueryEvent.TYPE.begin();
 	    dijkstraHeap = new BinaryHeap();
+	    int settled = 0;
+	    long begin = 0;
+	    queryStats = null;
+	    if (SearchStats.ENABLED) {
+	        queryStats = new SearchStats();
+	        dijkstraHeap.stats = queryStats;
+	        begin = System.nanoTime();
+	    }
 		// insert starting vertex into minheap with weight 0
 		DijkstraNode initial = new DijkstraNode(start, 0);
 		start.setData(initial);
@@ -112,6 +132,10 @@ public class Dijkstra {
 			try {
 				// get the node that has the minimum weight from the heap
 				DijkstraNode pickedNode = (DijkstraNode) dijkstraHeap.deleteMin();
+				settled++;
+				if (SearchStats.ENABLED) {
+				    queryStats.settled++;
+				}
 				// get the vertex this node belongs to
 				Vertex pickedVertex = pickedNode.getVertex();
 				// if the picked vertex is the destination, then we have found a shortest path
@@ -130,12 +154,21 @@ public class Dijkstra {
 			}
 		}
 		
+		SearchStats stats = queryStats;
+		if (SearchStats.ENABLED) {
+		    stats.nanos = System.nanoTime() - begin;
+		    SearchMetrics.global().record(stats);
+		}
+		QueryEvent.commit(event, "findDijkstra", start.getName(), end.getName(), foundPath,
+		        foundPath ? ((DijkstraNode) end.getData()).getWeight() : Double.POSITIVE_INFINITY,
+		        settled, dijkstraHeap.size());
 		if (foundPath) {
 			// We have found the path to the destination vertex. Update the path to the destination.
 			printShortestPath(start, end);
 		} else {
 		    System.out.println("No path found from " + start.getName() + " to " + end.getName());
 		}
+		return stats;
 	}
 	
 	/**
@@ -161,6 +194,9 @@ public class Dijkstra {
 		for (i = graph.incidentEdges(initial); i.hasNext();) {
 			// gets next incident edge
 			e = i.next();
+			if (SearchStats.ENABLED && queryStats != null) {
+			    queryStats.relaxed++;
+			}
 			// calculates new weight by adding the weight of this edge to weight of origin vertex
 			double newWeight = initialWeight + (Double) e.getData();
 			// get a vertex adjacent to initial using edge
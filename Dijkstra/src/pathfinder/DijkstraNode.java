@@ -10,7 +10,7 @@ import utility.Vertex;
  * @author Patrick Colowick-Harbour
  * @author Yong Yu Wang
  */
-public class DijkstraNode implements Comparable<DijkstraNode> {
+public class DijkstraNode implements Comparable<DijkstraNode>, HeapLocatable {
 	/**
 	 * The current weight of the vertex
 	 */
@@ -0,0 +1,128 @@
+package pathfinder;
+/**
+ * DistanceMatrix.java
+ * Shortest path distances from a list of origins to a list of targets, stored
+ * row by row in one dense array: the distance from origins[i] to targets[j]
+ * is at index i * targets.length + j.
+ * Rows are computed in parallel, one origin at a time per worker, with one
+ * search context per worker.  Each search stops as soon as every target is
+ * settled instead of exploring the whole graph.
+ */
+
+public class DistanceMatrix {
+
+    private final int[] origins;
+
+    private final int[] targets;
+
+    /** row-major distances, POSITIVE_INFINITY where there is no path */
+    private final double[] values;
+
+    /**
+     * Constructor.
+     * @param origins   the row vertex ids
+     * @param targets   the column vertex ids
+     * @param values    row-major distances, origins.length * targets.length of them
+     */
+    public DistanceMatrix(int[] origins, int[] targets, double[] values) {
+        this.origins = origins;
+        this.targets = targets;
+        this.values = values;
+    }
+
+    /**
+     * Computes the distance from every origin to every target.
+     * @param engine    the engine whose graph and search contexts are used
+     * @param origins   the row vertex ids
+     * @param targets   the column vertex ids
+     * @param threads   number of worker threads, 1 to run on the calling thread
+     * @return the distance matrix
+     * @throws IllegalArgumentException if the matrix has more than Integer.MAX_VALUE cells
+     */
+    public static DistanceMatrix compute(final QueryEngine engine, final int[] origins,
+            final int[] targets, int threads) {
+        final int columns = targets.length;
+        int cells;
+        try {
+            cells = Math.multiplyExact(origins.length, columns);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(origins.length + " x " + columns
+                    + " distances do not fit in one array, split the origins into smaller blocks");
+        }
+        final double[] values = new double[cells];
+        Workers workers = new Workers(Math.min(threads, origins.length));
+        final SearchContext[] contexts = new SearchContext[workers.size()];
+        try {
+            workers.forRange(origins.length, 1, new Workers.Body() {
+                public void run(int worker, int from, int to) {
+                    if (contexts[worker] == null) {
+                        contexts[worker] = engine.acquire();
+                    }
+                    for (int i = from; i < to; i++) {
+                        contexts[worker].computeDistances(origins[i], targets, values, i * columns);
+                    }
+                }
+            });
+        } finally {
+            for (SearchContext context : contexts) {
+                if (context != null) {
+                    engine.release(context);
+                }
+            }
+        }
+        return new DistanceMatrix(origins, targets, values);
+    }
+
+    /**
+     * Gets the number of rows.
+     * @return the origin count
+     */
+    public int numRows() {
+        return origins.length;
+    }
+
+    /**
+     * Gets the number of columns.
+     * @return the target count
+     */
+    public int numColumns() {
+        return targets.length;
+    }
+
+    /**
+     * Gets the origin of a row.
+     * @param row   a row index
+     * @return the origin vertex id
+     */
+    public int getOrigin(int row) {
+        return origins[row];
+    }
+
+    /**
+     * Gets the target of a column.
+     * @param column    a column index
+     * @return the target vertex id
+     */
+    public int getTarget(int column) {
+        return targets[column];
+    }
+
+    /**
+     * Gets the distance from the origin of a row to the target of a column.
+     * @param row   a row index
+     * @param column    a column index
+     * @return the distance, or POSITIVE_INFINITY if there is no path
+     */
+    public double get(int row, int column) {
+        return values[row * targets.length + column];
+    }
+
+    /**
+     * Gets the row-major distance array.  The array is shared, not copied,
+     * and must not be modified.
+     * @return every distance, origins.length * targets.length of them
+     */
+    public double[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,389 @@
+package pathfinder;
+/**
+ * DynamicShortestPathTree.java
+ * A shortest path tree from one origin that is kept up to date as edge
+ * weights change, after Ramalingam and Reps: a weight change only visits the
+ * vertices whose distance it can change instead of recomputing the tree.
+ *
+ * When an edge gets lighter, a search starts at the endpoint it brings
+ * closer and spreads only as far as distances improve.  When a tree edge
+ * gets heavier, the subtree below it is cut off, each vertex of the subtree
+ * is offered its best distance through a neighbour outside it, and a
+ * Dijkstra search confined to the subtree settles the rest.  A heavier edge
+ * that is not in the tree changes nothing.
+ *
+ * Several changes published together are repaired in one pass: the
+ * subtrees below every tree edge that got heavier are cut off and offered
+ * their best distance from outside, every edge that got lighter offers its
+ * improvement, and one search settles whatever either of them reaches.
+ *
+ * Distances and path pointers are kept in arrays indexed by vertex id, as
+ * in ShortestPathTree.  To keep several trees on one graph current, change
+ * the weights with CSRGraph.setEdgeWeight or setEdgeWeights and pass the
+ * old and new weights to edgeChanged() or edgesChanged() of every tree.
+ * Not thread-safe.
+ */
+
+import java.util.Arrays;
+
+import utility.CSRGraph;
+import utility.IndexedGraph;
+
+public class DynamicShortestPathTree {
+
+    private final IndexedGraph graph;
+
+    private final int origin;
+
+    /** distance from the origin to each vertex, POSITIVE_INFINITY if unreachable */
+    private final double[] distance;
+
+    /** previous vertex on the shortest path to each vertex, -1 if unreachable */
+    private final int[] parent;
+
+    /** vertices whose distance is being repaired */
+    private final IndexedDaryHeap heap;
+
+    /** the update in which each vertex was last touched */
+    private final int[] stamp;
+
+    /** the generation of the current update, never 0 */
+    private int generation;
+
+    /** the weights the current update reads, taken from the graph when it starts */
+    private IndexedGraph view;
+
+    /** the vertices cut off by the current update */
+    private int[] subtree = new int[16];
+
+    /**
+     * Constructor.  Computes the whole tree once.
+     * @param graph the graph, whose weights will change
+     * @param origin    the root of the tree
+     */
+    public DynamicShortestPathTree(IndexedGraph graph, int origin) {
+        int n = graph.numVertices();
+        this.graph = graph;
+        this.origin = origin;
+        this.distance = new double[n];
+        this.parent = new int[n];
+        this.heap = new IndexedDaryHeap(n);
+        this.stamp = new int[n];
+        new CSRDijkstra(graph).computeDistances(origin, distance, parent);
+    }
+
+    /**
+     * Gets the root of the tree.
+     * @return the origin vertex id
+     */
+    public int getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Determines whether a vertex can be reached from the origin.
+     * @param v a vertex id
+     * @return true if there is a path from the origin to v
+     */
+    public boolean isReachable(int v) {
+        return parent[v] >= 0;
+    }
+
+    /**
+     * Gets the distance from the origin to a vertex.
+     * @param v a vertex id
+     * @return the distance, or POSITIVE_INFINITY if v is unreachable
+     */
+    public double distanceTo(int v) {
+        return distance[v];
+    }
+
+    /**
+     * Gets the previous vertex on the shortest path to a vertex.
+     * @param v a vertex id
+     * @return the parent of v, the origin for the origin, or -1 if v is unreachable
+     */
+    public int parentOf(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Extracts the shortest path to a destination in time proportional to its length.
+     * @param destination   a vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath pathTo(int destination) {
+        if (parent[destination] < 0) {
+            return ShortestPath.notFound(origin, destination);
+        }
+        int length = 1;
+        for (int v = destination; v != origin; v = parent[v]) {
+            length++;
+        }
+        int[] vertices = new int[length];
+        for (int v = destination; length > 0; v = parent[v]) {
+            vertices[--length] = v;
+        }
+        return new ShortestPath(origin, destination, distance[destination], vertices);
+    }
+
+    /**
+     * Copies the current tree into a ShortestPathTree that later updates do not change.
+     * @return the copy
+     */
+    public ShortestPathTree snapshot() {
+        int reached = 0;
+        for (int p : parent) {
+            if (p >= 0) {
+                reached++;
+            }
+        }
+        return new ShortestPathTree(origin, distance.clone(), parent.clone(), reached);
+    }
+
+    /**
+     * Changes the weight of an edge of the graph and repairs this tree.
+     * @param u one endpoint, a vertex id
+     * @param v the other endpoint, a vertex id
+     * @param weight    the new weight, not negative
+     * @return the old weight
+     * @throws UnsupportedOperationException if the graph is not a CSRGraph
+     * @throws IllegalArgumentException if there is no edge between u and v
+     */
+    public double setEdgeWeight(int u, int v, double weight) {
+        if (!(graph instanceof CSRGraph)) {
+            throw new UnsupportedOperationException("only a CSRGraph can change its weights");
+        }
+        double old = ((CSRGraph) graph).setEdgeWeight(u, v, weight);
+        edgeChanged(u, v, old, weight);
+        return old;
+    }
+
+    /**
+     * Changes the weights of several edges of the graph at once and repairs
+     * this tree.
+     * @param us    one endpoint of each edge
+     * @param vs    the other endpoint of each edge
+     * @param weights   the new weight of each edge, not negative
+     * @return the old weights
+     * @throws UnsupportedOperationException if the graph is not a CSRGraph
+     * @throws IllegalArgumentException if there is no edge between some us[i] and vs[i]
+     */
+    public double[] setEdgeWeights(int[] us, int[] vs, double[] weights) {
+        if (!(graph instanceof CSRGraph)) {
+            throw new UnsupportedOperationException("only a CSRGraph can change its weights");
+        }
+        double[] old = ((CSRGraph) graph).setEdgeWeights(us, vs, weights);
+        edgesChanged(us, vs, old, weights);
+        return old;
+    }
+
+    /**
+     * Repairs the tree after the weight of the edge between u and v has
+     * changed in the graph, and nothing else has since the last repair.
+     * @param u one endpoint, a vertex id
+     * @param v the other endpoint, a vertex id
+     * @param oldWeight the weight before the change
+     * @param newWeight the weight after the change
+     * @return the number of vertices whose distance or parent was recomputed
+     */
+    public int edgeChanged(int u, int v, double oldWeight, double newWeight) {
+        if (u == v || newWeight == oldWeight) {
+            // a self-loop is never on a shortest path
+            return 0;
+        }
+        nextGeneration();
+        return (newWeight < oldWeight) ? decreased(u, v, newWeight) : increased(u, v, oldWeight);
+    }
+
+    /**
+     * Repairs the tree after the weights of several edges have changed in
+     * the graph together, as CSRGraph.setEdgeWeights() changes them.  Each
+     * edge may be listed once.
+     * @param us    one endpoint of each edge
+     * @param vs    the other endpoint of each edge
+     * @param oldWeights    the weight of each edge before the change
+     * @param newWeights    the weight of each edge after the change
+     * @return the number of vertices whose distance or parent was recomputed
+     */
+    public int edgesChanged(int[] us, int[] vs, double[] oldWeights, double[] newWeights) {
+        if (us.length != vs.length || us.length != oldWeights.length || us.length != newWeights.length) {
+            throw new IllegalArgumentException("need one endpoint pair per weight");
+        }
+        nextGeneration();
+
+        // cut off every subtree hanging from a tree edge that got heavier
+        int size = 0;
+        for (int i = 0; i < us.length; i++) {
+            if (us[i] != vs[i] && newWeights[i] > oldWeights[i]) {
+                int child = treeChild(us[i], vs[i], oldWeights[i]);
+                if (child >= 0 && stamp[child] != generation) {
+                    size = cut(child, size);
+                }
+            }
+        }
+        reenter(size);
+
+        // the rest keeps distances that are still paths, if perhaps no longer
+        // the shortest, so lighter edges may improve on them anywhere
+        int touched = size;
+        for (int i = 0; i < us.length; i++) {
+            if (us[i] != vs[i] && newWeights[i] < oldWeights[i]) {
+                touched += lower(us[i], vs[i], newWeights[i]) + lower(vs[i], us[i], newWeights[i]);
+            }
+        }
+        while (!heap.isEmpty()) {
+            int x = heap.deleteMin();
+            for (int arc = view.arcStart(x), end = view.arcEnd(x); arc < end; arc++) {
+                touched += lower(x, view.arcTarget(arc), view.arcWeight(arc));
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Starts a new update, so that no vertex counts as touched, on the
+     * weights the graph has now.
+     */
+    private void nextGeneration() {
+        view = graph.frozen();
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Spreads the improvement an edge that got lighter brings, from whichever
+     * endpoint it brings closer.
+     */
+    private int decreased(int u, int v, double weight) {
+        int touched = lower(u, v, weight) + lower(v, u, weight);
+        while (!heap.isEmpty()) {
+            int x = heap.deleteMin();
+            for (int arc = view.arcStart(x), end = view.arcEnd(x); arc < end; arc++) {
+                touched += lower(x, view.arcTarget(arc), view.arcWeight(arc));
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Gives v the distance through u if that is shorter and queues it.
+     * @return 1 if v was touched for the first time in this update, else 0
+     */
+    private int lower(int u, int v, double weight) {
+        double newWeight = distance[u] + weight;
+        if (!(newWeight < distance[v])) {
+            return 0;
+        }
+        distance[v] = newWeight;
+        parent[v] = u;
+        if (heap.contains(v)) {
+            heap.decreaseKey(v, newWeight);
+        } else {
+            heap.insert(v, newWeight);
+        }
+        if (stamp[v] == generation) {
+            return 0;
+        }
+        stamp[v] = generation;
+        return 1;
+    }
+
+    /**
+     * Cuts off and resettles the subtree below an edge that got heavier,
+     * if the edge is in the tree.
+     */
+    private int increased(int u, int v, double oldWeight) {
+        int child = treeChild(u, v, oldWeight);
+        if (child < 0) {
+            return 0;
+        }
+        int size = cut(child, 0);
+        reenter(size);
+
+        // distances outside the subtree cannot improve, so the search stays inside it
+        while (!heap.isEmpty()) {
+            int x = heap.deleteMin();
+            for (int arc = view.arcStart(x), end = view.arcEnd(x); arc < end; arc++) {
+                int y = view.arcTarget(arc);
+                double newWeight = distance[x] + view.arcWeight(arc);
+                if (stamp[y] == generation && newWeight < distance[y]) {
+                    distance[y] = newWeight;
+                    parent[y] = x;
+                    if (heap.contains(y)) {
+                        heap.decreaseKey(y, newWeight);
+                    } else {
+                        heap.insert(y, newWeight);
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the endpoint of an edge whose path pointer leads over the edge
+     * at the given weight, or -1 if the edge is not in the tree.
+     */
+    private int treeChild(int u, int v, double weight) {
+        if (parent[v] == u && distance[v] == distance[u] + weight) {
+            return v;
+        } else if (parent[u] == v && distance[u] == distance[v] + weight) {
+            return u;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the subtree below child, every vertex whose path pointer leads to
+     * it, to the first size entries of the cut-off vertices, stamps it and
+     * makes it unreachable.
+     * @return the new number of cut-off vertices
+     */
+    private int cut(int child, int size) {
+        int first = size;
+        subtree[size++] = child;
+        stamp[child] = generation;
+        for (int i = first; i < size; i++) {
+            int x = subtree[i];
+            for (int arc = view.arcStart(x), end = view.arcEnd(x); arc < end; arc++) {
+                int y = view.arcTarget(arc);
+                if (parent[y] == x && y != origin && stamp[y] != generation) {
+                    if (size == subtree.length) {
+                        subtree = Arrays.copyOf(subtree, 2 * size);
+                    }
+                    subtree[size++] = y;
+                    stamp[y] = generation;
+                }
+            }
+        }
+        for (int i = first; i < size; i++) {
+            distance[subtree[i]] = Double.POSITIVE_INFINITY;
+            parent[subtree[i]] = -1;
+        }
+        return size;
+    }
+
+    /**
+     * Gives every cut-off vertex its best way in from the rest of the tree
+     * and queues the ones that have one.
+     */
+    private void reenter(int size) {
+        for (int i = 0; i < size; i++) {
+            int x = subtree[i];
+            for (int arc = view.arcStart(x), end = view.arcEnd(x); arc < end; arc++) {
+                int y = view.arcTarget(arc);
+                if (stamp[y] != generation && distance[y] + view.arcWeight(arc) < distance[x]) {
+                    distance[x] = distance[y] + view.arcWeight(arc);
+                    parent[x] = y;
+                }
+            }
+            if (parent[x] >= 0) {
+                heap.insert(x, distance[x]);
+            }
+        }
+    }
+}
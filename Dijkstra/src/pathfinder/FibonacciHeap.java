@@ -0,0 +1,303 @@
+package pathfinder;
+/**
+ * FibonacciHeap.java
+ * A Fibonacci heap of int vertex ids with double priorities (Fredman and Tarjan).
+ * Nodes live in arrays indexed by vertex id; every sibling list, the root
+ * list included, is a circular doubly linked list through left and right.
+ * insert and decreaseKey are amortised O(1): decreaseKey cuts a node that
+ * violates heap order into the root list, and cascades the cut up through
+ * parents that have already lost a child.  deleteMin is amortised O(log n),
+ * consolidating the roots so that no two have the same degree.
+ * Vertex ids must lie in [0, capacity).
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class FibonacciHeap implements VertexQueue {
+
+    /** empty link */
+    private static final int NONE = -1;
+
+    /** more than the largest possible degree, which is below log base 1.618 of 2^31 */
+    private static final int MAX_DEGREE = 48;
+
+    private final double[] keys;
+
+    /** parent of each node, NONE for roots */
+    private final int[] parent;
+
+    /** some child of each node, NONE if it has none */
+    private final int[] child;
+
+    /** previous node in the same sibling list */
+    private final int[] left;
+
+    /** next node in the same sibling list */
+    private final int[] right;
+
+    /** number of children of each node */
+    private final int[] degree;
+
+    /** whether each node has lost a child since it last became a child itself */
+    private final boolean[] marked;
+
+    /** whether each vertex is in the heap */
+    private final boolean[] present;
+
+    /** the root of each degree during consolidation */
+    private final int[] byDegree = new int[MAX_DEGREE];
+
+    /** scratch for consolidation's root list and clear's traversal */
+    private final int[] scratch;
+
+    /** the root with the smallest key, NONE if empty */
+    private int min = NONE;
+
+    private int size;
+
+    /**
+     * Constructor.
+     * @param capacity  number of distinct vertex ids the heap can contain
+     */
+    public FibonacciHeap(int capacity) {
+        this.keys = new double[capacity];
+        this.parent = new int[capacity];
+        this.child = new int[capacity];
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.degree = new int[capacity];
+        this.marked = new boolean[capacity];
+        this.present = new boolean[capacity];
+        this.scratch = new int[capacity];
+        Arrays.fill(byDegree, NONE);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return present[vertex];
+    }
+
+    public double getKey(int vertex) {
+        return keys[vertex];
+    }
+
+    public double minKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        return keys[min];
+    }
+
+    public void insert(int vertex, double key) {
+        if (present[vertex]) {
+            throw new IllegalArgumentException("vertex " + vertex + " is already in the heap");
+        }
+        present[vertex] = true;
+        keys[vertex] = key;
+        parent[vertex] = NONE;
+        child[vertex] = NONE;
+        degree[vertex] = 0;
+        marked[vertex] = false;
+        addRoot(vertex);
+        size++;
+    }
+
+    public void decreaseKey(int vertex, double newKey) {
+        if (!present[vertex]) {
+            throw new IllegalArgumentException("vertex " + vertex + " is not in the heap");
+        }
+        if (newKey > keys[vertex]) {
+            throw new IllegalArgumentException("new key is larger than the current key");
+        }
+        keys[vertex] = newKey;
+        int p = parent[vertex];
+        if (p != NONE && newKey < keys[p]) {
+            cut(vertex, p);
+            // cascading cut: a parent losing its second child is cut as well
+            while (parent[p] != NONE) {
+                if (!marked[p]) {
+                    marked[p] = true;
+                    break;
+                }
+                int grandparent = parent[p];
+                cut(p, grandparent);
+                p = grandparent;
+            }
+        }
+        if (newKey < keys[min]) {
+            min = vertex;
+        }
+    }
+
+    public int deleteMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        int z = min;
+        // every child of z becomes a root
+        int c = child[z];
+        if (c != NONE) {
+            int first = c;
+            do {
+                parent[c] = NONE;
+                marked[c] = false;
+                c = right[c];
+            } while (c != first);
+            splice(z, first);
+        }
+        present[z] = false;
+        size--;
+        if (right[z] == z) {
+            min = NONE;
+        } else {
+            min = right[z];
+            unlinkSibling(z);
+            consolidate();
+        }
+        return z;
+    }
+
+    /**
+     * Remove every vertex from the heap, visiting each of them once.
+     */
+    public void clear() {
+        int top = 0;
+        if (min != NONE) {
+            int r = min;
+            do {
+                scratch[top++] = r;
+                r = right[r];
+            } while (r != min);
+        }
+        while (top > 0) {
+            int v = scratch[--top];
+            present[v] = false;
+            int c = child[v];
+            if (c != NONE) {
+                int first = c;
+                do {
+                    scratch[top++] = c;
+                    c = right[c];
+                } while (c != first);
+            }
+        }
+        min = NONE;
+        size = 0;
+    }
+
+    /**
+     * Adds a lone node to the root list and updates the minimum.
+     */
+    private void addRoot(int v) {
+        if (min == NONE) {
+            left[v] = v;
+            right[v] = v;
+            min = v;
+        } else {
+            left[v] = v;
+            right[v] = v;
+            splice(min, v);
+            if (keys[v] < keys[min]) {
+                min = v;
+            }
+        }
+    }
+
+    /**
+     * Joins the circular list containing b into the one containing a, after a.
+     */
+    private void splice(int a, int b) {
+        int aNext = right[a];
+        int bPrev = left[b];
+        right[a] = b;
+        left[b] = a;
+        right[bPrev] = aNext;
+        left[aNext] = bPrev;
+    }
+
+    /**
+     * Removes a node from its sibling list, leaving it a list of one.
+     */
+    private void unlinkSibling(int v) {
+        right[left[v]] = right[v];
+        left[right[v]] = left[v];
+        left[v] = v;
+        right[v] = v;
+    }
+
+    /**
+     * Moves a child into the root list.
+     */
+    private void cut(int v, int p) {
+        if (right[v] == v) {
+            child[p] = NONE;
+        } else {
+            if (child[p] == v) {
+                child[p] = right[v];
+            }
+            unlinkSibling(v);
+        }
+        degree[p]--;
+        parent[v] = NONE;
+        marked[v] = false;
+        splice(min, v);
+    }
+
+    /**
+     * Links roots of equal degree until all degrees differ, then finds the new minimum.
+     */
+    private void consolidate() {
+        int roots = 0;
+        int r = min;
+        do {
+            scratch[roots++] = r;
+            r = right[r];
+        } while (r != min);
+
+        int maxDegree = 0;
+        for (int i = 0; i < roots; i++) {
+            int x = scratch[i];
+            left[x] = x;
+            right[x] = x;
+            int d = degree[x];
+            while (byDegree[d] != NONE) {
+                int y = byDegree[d];
+                byDegree[d] = NONE;
+                if (keys[y] < keys[x]) {
+                    int swap = x;
+                    x = y;
+                    y = swap;
+                }
+                // y becomes a child of x
+                parent[y] = x;
+                marked[y] = false;
+                if (child[x] == NONE) {
+                    child[x] = y;
+                } else {
+                    splice(child[x], y);
+                }
+                degree[x]++;
+                d++;
+            }
+            byDegree[d] = x;
+            maxDegree = Math.max(maxDegree, d);
+        }
+
+        min = NONE;
+        for (int d = 0; d <= maxDegree; d++) {
+            int x = byDegree[d];
+            if (x != NONE) {
+                byDegree[d] = NONE;
+                addRoot(x);
+            }
+        }
+    }
+}
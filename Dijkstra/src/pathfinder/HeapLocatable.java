@@ -0,0 +1,22 @@
+package pathfinder;
+/**
+ * HeapLocatable.java
+ * An element that remembers where BinaryHeap stores it, so that its key can be
+ * lowered with BinaryHeap.decreaseKey(int) without searching the heap.
+ * Elements that do not implement this interface can still be stored in a
+ * BinaryHeap; they just cannot have their keys decreased.
+ */
+public interface HeapLocatable {
+
+    /**
+     * Gets the index this element has in the heap array.
+     * @return the array index of this element
+     */
+    int getHeapLocation();
+
+    /**
+     * Sets the index this element has in the heap array.
+     * @param newHeapLocation   the new index value of this element
+     */
+    void setHeapLocation(int newHeapLocation);
+}
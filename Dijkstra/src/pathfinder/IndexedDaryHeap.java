@@ -0,0 +1,219 @@
+package pathfinder;
+/**
+ * IndexedDaryHeap.java
+ * A d-ary minheap of int vertex ids with double priorities.
+ * Keys live in a double[] in heap order next to the vertex ids, and the
+ * position of every vertex is kept in an int[] indexed by vertex id, so
+ * decreaseKey can find a vertex without the caller tracking its heap location
+ * and no operation allocates or calls compareTo.
+ * Vertex ids must lie in [0, capacity).
+ */
+
+import java.util.NoSuchElementException;
+
+public class IndexedDaryHeap implements VertexQueue {
+
+    /** position of a vertex that is not in the heap */
+    private static final int ABSENT = -1;
+
+    /** log2 of the arity, so child and parent indices are shifts */
+    private final int shift;
+
+    /** vertex ids in heap order, index 0 is the root */
+    private final int[] vertices;
+
+    /** keys in heap order, keys[i] belongs to vertices[i] */
+    private final double[] keys;
+
+    /** index of each vertex in the heap arrays, or ABSENT */
+    private final int[] positions;
+
+    private int size;
+
+    /**
+     * Constructor for a 4-ary heap.
+     * @param capacity  number of distinct vertex ids the heap can contain
+     */
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, 4);
+    }
+
+    /**
+     * Constructor
+     * @param capacity  number of distinct vertex ids the heap can contain
+     * @param arity     number of children per node, one of 2, 4 or 8
+     */
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity != 2 && arity != 4 && arity != 8) {
+            throw new IllegalArgumentException("arity must be 2, 4 or 8: " + arity);
+        }
+        this.shift = Integer.numberOfTrailingZeros(arity);
+        this.vertices = new int[capacity];
+        this.keys = new double[capacity];
+        this.positions = new int[capacity];
+        java.util.Arrays.fill(positions, ABSENT);
+        this.size = 0;
+    }
+
+    /**
+     * Determine whether the heap is empty.
+     * @return  true if the heap is empty; false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return the number of vertices in the heap.
+     * @return  the heap size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of children of each heap node.
+     * @return  the arity
+     */
+    public int getArity() {
+        return 1 << shift;
+    }
+
+    /**
+     * Determine whether a vertex is currently in the heap.
+     * @param vertex    a vertex id
+     * @return  true if the vertex is in the heap
+     */
+    public boolean contains(int vertex) {
+        return positions[vertex] != ABSENT;
+    }
+
+    /**
+     * Return the key of a vertex in the heap.
+     * @param vertex    a vertex id that is in the heap
+     * @return  the key of the vertex
+     */
+    public double getKey(int vertex) {
+        return keys[positions[vertex]];
+    }
+
+    /**
+     * Return the smallest key in the heap without removing it.
+     * @return  the minimum key
+     */
+    public double minKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        return keys[0];
+    }
+
+    /**
+     * Insert a vertex into the heap.
+     * @param vertex    a vertex id that is not in the heap
+     * @param key   the priority of the vertex
+     */
+    public void insert(int vertex, double key) {
+        if (positions[vertex] != ABSENT) {
+            throw new IllegalArgumentException("vertex " + vertex + " is already in the heap");
+        }
+        percolateUp(size++, vertex, key);
+    }
+
+    /**
+     * Lower the key of a vertex that is in the heap and restore heap order.
+     * @param vertex    a vertex id that is in the heap
+     * @param newKey    the new key, no larger than the current one
+     */
+    public void decreaseKey(int vertex, double newKey) {
+        int index = positions[vertex];
+        if (index == ABSENT) {
+            throw new IllegalArgumentException("vertex " + vertex + " is not in the heap");
+        }
+        if (newKey > keys[index]) {
+            throw new IllegalArgumentException("new key is larger than the current key");
+        }
+        percolateUp(index, vertex, newKey);
+    }
+
+    /**
+     * Remove the vertex with minimum key from the heap.
+     * @return  the vertex id with minimum key
+     */
+    public int deleteMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        int min = vertices[0];
+        positions[min] = ABSENT;
+        size--;
+        if (size > 0) {
+            percolateDown(0, vertices[size], keys[size]);
+        }
+        return min;
+    }
+
+    /**
+     * Remove every vertex from the heap.  Only the positions of vertices that
+     * are still in the heap are reset, so this costs O(size()).
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[vertices[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * Move a key up from a hole at the given index until its parent is smaller.
+     */
+    private void percolateUp(int index, int vertex, double key) {
+        while (index > 0) {
+            int parent = (index - 1) >>> shift;
+            double parentKey = keys[parent];
+            if (key >= parentKey) {
+                break;
+            }
+            keys[index] = parentKey;
+            vertices[index] = vertices[parent];
+            positions[vertices[index]] = index;
+            index = parent;
+        }
+        keys[index] = key;
+        vertices[index] = vertex;
+        positions[vertex] = index;
+    }
+
+    /**
+     * Move a key down from a hole at the given index until its children are larger.
+     */
+    private void percolateDown(int index, int vertex, double key) {
+        int arity = 1 << shift;
+        while (true) {
+            int first = (index << shift) + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int child = first;
+            double childKey = keys[first];
+            for (int i = first + 1; i < last; i++) {
+                if (keys[i] < childKey) {
+                    child = i;
+                    childKey = keys[i];
+                }
+            }
+            // ASSERT: at this point, keys[child] is the smallest of the children
+            if (childKey >= key) {
+                break;
+            }
+            keys[index] = childKey;
+            vertices[index] = vertices[child];
+            positions[vertices[index]] = index;
+            index = child;
+        }
+        keys[index] = key;
+        vertices[index] = vertex;
+        positions[vertex] = index;
+    }
+}
@@ -0,0 +1,525 @@
+package pathfinder;
+/**
+ * Landmarks.java
+ * Precomputed distances from a small set of landmark vertices, used by AltSearch
+ * to bound the distance between any two vertices from below.  For every vertex
+ * v, target t and landmark L the triangle inequality gives
+ * d(v, t) >= |d(L, t) - d(L, v)|, and the largest of these over all landmarks
+ * is the A* potential of v.
+ *
+ * The table is stored vertex-major, so the k distances of one vertex sit next
+ * to each other and computing a potential touches a single cache line or two.
+ * Tables can be written to a file and read back for the same graph.
+ *
+ * The tables hold for the weights they were computed on.  They record the
+ * graph version of those weights, and AltSearch refuses to use them once
+ * the version has moved; a file carries a fingerprint of the weights, which
+ * load() checks against the graph.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import utility.IndexedGraph;
+import utility.Versioned;
+
+public class Landmarks {
+
+    /** "ALT1", the first four bytes of a landmark file */
+    private static final int MAGIC = 0x414C5431;
+
+    /** format version of landmark files written by this class */
+    private static final int VERSION = 2;
+
+    /** the largest array length every JVM allocates */
+    private static final int MAX_TABLE = Integer.MAX_VALUE - 8;
+
+    /**
+     * How landmarks are chosen.
+     */
+    public enum Selection {
+        /** each landmark is the vertex farthest from all landmarks chosen before it */
+        FARTHEST,
+
+        /**
+         * Goldberg and Werneck's avoid heuristic: grow a shortest path tree from a
+         * random root and descend into the subtree whose distances the current
+         * landmarks bound worst, taking the leaf reached as the next landmark
+         */
+        AVOID
+    }
+
+    /** the landmark vertex ids */
+    private final int[] landmarks;
+
+    /** distance from landmark i to vertex v at table[v * landmarks.length + i] */
+    private final double[] table;
+
+    /** number of vertices the table covers */
+    private final int vertices;
+
+    /** number of arcs of the graph the table was computed for, used to check loaded files */
+    private final int arcs;
+
+    /** the version of the graph the table was computed on */
+    private final long graphVersion;
+
+    /** fingerprint() of the arcs and weights the table was computed on, used to check loaded files */
+    private final long weights;
+
+    private Landmarks(int[] landmarks, double[] table, IndexedGraph graph, long weights) {
+        this.landmarks = landmarks;
+        this.table = table;
+        this.vertices = graph.numVertices();
+        this.arcs = graph.numArcs();
+        this.graphVersion = Versioned.of(graph);
+        this.weights = weights;
+    }
+
+    /**
+     * Computes the distance tables of the given landmarks, one landmark per task,
+     * on the given number of threads.
+     * @param graph the graph to compute distances on
+     * @param landmarks the landmark vertex ids
+     * @param threads   number of worker threads
+     * @return the landmark tables
+     * @throws IllegalArgumentException if the tables of that many landmarks
+     *         on this graph do not fit in one array
+     */
+    public static Landmarks compute(IndexedGraph graph, final int[] landmarks, int threads) {
+        // every landmark is searched on the same weights
+        final IndexedGraph view = graph.frozen();
+        final int n = view.numVertices();
+        final int k = landmarks.length;
+        final double[] table = new double[tableSize(n, k)];
+        final ThreadLocal<CSRDijkstra> searches = new ThreadLocal<CSRDijkstra>() {
+            protected CSRDijkstra initialValue() {
+                return new CSRDijkstra(view);
+            }
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, k)));
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < k; i++) {
+                final int column = i;
+                tasks.add(pool.submit(new Runnable() {
+                    public void run() {
+                        double[] distances = new double[n];
+                        searches.get().computeDistances(landmarks[column], distances, null);
+                        for (int v = 0; v < n; v++) {
+                            table[v * k + column] = distances[v];
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("landmark computation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("landmark computation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return new Landmarks(landmarks.clone(), table, view, fingerprint(view));
+    }
+
+    /**
+     * Chooses landmarks with the given heuristic and computes their tables.
+     * Both heuristics need the tables of the landmarks chosen so far to place
+     * the next one, so this runs one search after another and keeps the
+     * tables it builds along the way.  To recompute the tables of a known
+     * landmark set on several threads, use compute() with getLandmarks().
+     * @param graph the graph to place landmarks on
+     * @param count number of landmarks, at most the number of vertices
+     * @param selection the placement heuristic
+     * @param seed  seed for the random start vertices
+     * @return the landmark tables
+     * @throws IllegalArgumentException if count is out of range or the tables
+     *         do not fit in one array
+     */
+    public static Landmarks select(IndexedGraph graph, int count, Selection selection, long seed) {
+        graph = graph.frozen();
+        int n = graph.numVertices();
+        if (count < 1 || count > n) {
+            throw new IllegalArgumentException("cannot place " + count + " landmarks on "
+                    + n + " vertices");
+        }
+        // fail before the searches rather than after them
+        tableSize(n, count);
+        Random random = new Random(seed);
+        CSRDijkstra search = new CSRDijkstra(graph);
+        int[] chosen = new int[count];
+        double[][] distances = new double[count][];
+        // distance from each vertex to its nearest chosen landmark
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        double[] rootDistances = new double[n];
+        int[] rootParents = new int[n];
+
+        for (int i = 0; i < count; i++) {
+            int next = -1;
+            if (selection == Selection.AVOID) {
+                int root = random.nextInt(n);
+                search.computeDistances(root, rootDistances, rootParents);
+                next = avoid(root, rootDistances, rootParents, chosen, distances, i);
+            }
+            if (next < 0) {
+                next = (i == 0) ? farthestFrom(search, random.nextInt(n), n)
+                                : farthest(nearest, chosen, i);
+            }
+            chosen[i] = next;
+            distances[i] = new double[n];
+            search.computeDistances(next, distances[i], null);
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], distances[i][v]);
+            }
+        }
+        return fromColumns(chosen, distances, graph);
+    }
+
+    /**
+     * Finds the vertex farthest from a start vertex, used to place the first landmark.
+     */
+    private static int farthestFrom(CSRDijkstra search, int start, int n) {
+        double[] distances = new double[n];
+        search.computeDistances(start, distances, null);
+        int best = start;
+        for (int v = 0; v < n; v++) {
+            if (distances[v] != Double.POSITIVE_INFINITY && distances[v] > distances[best]) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the vertex whose nearest landmark is farthest away.  Vertices no
+     * landmark can reach come first, so every component gets a landmark.
+     */
+    private static int farthest(double[] nearest, int[] chosen, int count) {
+        int best = -1;
+        for (int v = 0; v < nearest.length; v++) {
+            if (nearest[v] > 0 && (best < 0 || nearest[v] > nearest[best])) {
+                best = v;
+            }
+        }
+        if (best < 0) {
+            // every vertex is a landmark or sits on one; take any unused vertex
+            for (int v = 0; best < 0; v++) {
+                if (!contains(chosen, count, v)) {
+                    best = v;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Walks down the shortest path tree of a root, always into the child whose
+     * subtree has the largest total gap between true distance and lower bound,
+     * skipping subtrees that already hold a landmark.
+     * @return the vertex reached, or -1 if every subtree is already covered
+     */
+    private static int avoid(int root, double[] rootDistances, int[] parents,
+                             int[] chosen, double[][] distances, int count) {
+        int n = parents.length;
+        // children lists of the tree, counting sort by parent
+        int[] childStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            if (parents[v] >= 0 && v != root) {
+                childStart[parents[v] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            childStart[v + 1] += childStart[v];
+        }
+        int[] children = new int[childStart[n]];
+        int[] fill = Arrays.copyOf(childStart, n);
+        for (int v = 0; v < n; v++) {
+            if (parents[v] >= 0 && v != root) {
+                children[fill[parents[v]]++] = v;
+            }
+        }
+
+        // preorder of the tree, so that reversing it visits children before parents
+        int[] order = new int[n];
+        int ordered = 0;
+        int[] stack = new int[n];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int v = stack[--top];
+            order[ordered++] = v;
+            for (int c = childStart[v]; c < childStart[v + 1]; c++) {
+                stack[top++] = children[c];
+            }
+        }
+
+        double[] size = new double[n];
+        boolean[] covered = new boolean[n];
+        for (int i = 0; i < count; i++) {
+            covered[chosen[i]] = true;
+        }
+        for (int j = ordered - 1; j >= 0; j--) {
+            int v = order[j];
+            if (covered[v]) {
+                size[v] = 0;
+                if (v != root) {
+                    covered[parents[v]] = true;
+                }
+                continue;
+            }
+            double bound = 0;
+            for (int i = 0; i < count; i++) {
+                double gap = Math.abs(distances[i][root] - distances[i][v]);
+                if (gap > bound && gap != Double.POSITIVE_INFINITY) {
+                    bound = gap;
+                }
+            }
+            size[v] += Math.max(0, rootDistances[v] - bound);
+            if (v != root) {
+                size[parents[v]] += size[v];
+            }
+        }
+        int v = root;
+        while (true) {
+            int next = -1;
+            for (int c = childStart[v]; c < childStart[v + 1]; c++) {
+                int child = children[c];
+                if (!covered[child] && size[child] > 0
+                        && (next < 0 || size[child] > size[next])) {
+                    next = child;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            v = next;
+        }
+        return (v == root && covered[root]) ? -1 : v;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the length of the table of k landmarks on n vertices.  Entry
+     * v * k + i is then an int for every vertex v and landmark i.
+     * @throws IllegalArgumentException if the table does not fit in one array
+     */
+    private static int tableSize(int n, int k) {
+        long size = (long) n * k;
+        if (size > MAX_TABLE) {
+            throw new IllegalArgumentException(k + " landmarks on " + n + " vertices need "
+                    + size + " table entries, more than one array can hold; use at most "
+                    + (MAX_TABLE / Math.max(1, n)) + " landmarks");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Interleaves per-landmark distance arrays into a vertex-major table.
+     */
+    private static Landmarks fromColumns(int[] chosen, double[][] columns, IndexedGraph graph) {
+        int n = graph.numVertices();
+        int k = chosen.length;
+        double[] table = new double[tableSize(n, k)];
+        for (int i = 0; i < k; i++) {
+            for (int v = 0; v < n; v++) {
+                table[v * k + i] = columns[i][v];
+            }
+        }
+        return new Landmarks(chosen, table, graph, fingerprint(graph));
+    }
+
+    /**
+     * Hashes the arc targets and weights of a graph, so a table read from a
+     * file can be checked against the weights it was computed on.
+     */
+    private static long fingerprint(IndexedGraph graph) {
+        long hash = 1;
+        for (int arc = 0, m = graph.numArcs(); arc < m; arc++) {
+            hash = 31 * hash + graph.arcTarget(arc);
+            hash = 31 * hash + Double.doubleToLongBits(graph.arcWeight(arc));
+        }
+        return hash;
+    }
+
+    /**
+     * Checks that a graph still has the weights the tables were computed on.
+     * @param graph the graph as a query sees it, a frozen() view
+     * @throws IllegalStateException if the graph version has moved since
+     */
+    void checkVersion(IndexedGraph graph) {
+        long current = Versioned.of(graph);
+        if (current != graphVersion) {
+            throw new IllegalStateException("landmark tables were computed at graph version "
+                    + graphVersion + " but the graph is at version " + current + "; compute them again");
+        }
+    }
+
+    /**
+     * Gets the number of landmarks.
+     * @return the landmark count
+     */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /**
+     * Gets the landmark vertex ids.
+     * @return a copy of the landmark ids
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Gets the distance from a landmark to a vertex.
+     * @param landmark  the index of the landmark, not its vertex id
+     * @param v a vertex id
+     * @return the distance, or POSITIVE_INFINITY if v is unreachable from the landmark
+     */
+    public double distance(int landmark, int v) {
+        return table[v * landmarks.length + landmark];
+    }
+
+    /**
+     * Copies the landmark distances of a vertex into an array.
+     * @param v a vertex id
+     * @param row   receives the distance from each landmark to v
+     */
+    void row(int v, double[] row) {
+        System.arraycopy(table, v * landmarks.length, row, 0, landmarks.length);
+    }
+
+    /**
+     * Computes the largest triangle-inequality lower bound on the distance
+     * between a vertex and a target.
+     * @param v a vertex id
+     * @param targetRow the landmark distances of the target, as filled by row()
+     * @return the lower bound, or POSITIVE_INFINITY if some landmark shows that
+     *         v and the target lie in different components
+     */
+    double lowerBound(int v, double[] targetRow) {
+        int k = landmarks.length;
+        int base = v * k;
+        double bound = 0;
+        for (int i = 0; i < k; i++) {
+            double toTarget = targetRow[i];
+            double toVertex = table[base + i];
+            if (toTarget == Double.POSITIVE_INFINITY || toVertex == Double.POSITIVE_INFINITY) {
+                if (toTarget != toVertex) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            } else {
+                double gap = (toTarget > toVertex) ? toTarget - toVertex : toVertex - toTarget;
+                if (gap > bound) {
+                    bound = gap;
+                }
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Writes the landmark tables to a file.
+     * @param path  the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(String path) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(vertices);
+            out.writeInt(arcs);
+            out.writeLong(weights);
+            out.writeInt(landmarks.length);
+            for (int landmark : landmarks) {
+                out.writeInt(landmark);
+            }
+            for (double distance : table) {
+                out.writeDouble(distance);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads landmark tables written by save() for the given graph.
+     * @param path  the file to read
+     * @param graph the graph the tables were computed on, with the same weights
+     * @return the landmark tables, valid for the current version of the graph
+     * @throws IOException if the file cannot be read, is not a landmark file,
+     *         or was written for a graph of a different size or other weights
+     */
+    public static Landmarks load(String path, IndexedGraph graph) throws IOException {
+        graph = graph.frozen();
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(path), 1 << 16));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a landmark file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported landmark file version " + version);
+            }
+            int n = in.readInt();
+            int m = in.readInt();
+            if (n != graph.numVertices() || m != graph.numArcs()) {
+                throw new IOException(path + " was computed for a different graph");
+            }
+            long weights = in.readLong();
+            if (weights != fingerprint(graph)) {
+                throw new IOException(path + " was computed for other edge weights");
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException(path + " is corrupt");
+            }
+            double[] table;
+            try {
+                table = new double[tableSize(n, count)];
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + ": " + e.getMessage());
+            }
+            int[] landmarks = new int[count];
+            for (int i = 0; i < landmarks.length; i++) {
+                landmarks[i] = in.readInt();
+            }
+            for (int i = 0; i < table.length; i++) {
+                table[i] = in.readDouble();
+            }
+            return new Landmarks(landmarks, table, graph, weights);
+        } finally {
+            in.close();
+        }
+    }
+}
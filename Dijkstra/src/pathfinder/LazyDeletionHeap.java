@@ -0,0 +1,178 @@
+package pathfinder;
+/**
+ * LazyDeletionHeap.java
+ * A binary minheap of (key, vertex) entries that never moves an entry to
+ * lower a key.  decreaseKey pushes a second entry for the vertex instead,
+ * and deleteMin skips entries whose key is no longer the vertex's current
+ * one.  The heap holds one entry per insert or decreaseKey that has not been
+ * popped yet, so it trades memory for the cheapest possible decreaseKey and
+ * sequential sift loops with no position bookkeeping.
+ * Vertex ids must lie in [0, capacity).
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class LazyDeletionHeap implements VertexQueue {
+
+    /** vertex ids of the entries in heap order, index 0 is the root */
+    private int[] entryVertices;
+
+    /** keys of the entries in heap order */
+    private double[] entryKeys;
+
+    /** number of entries, live or stale */
+    private int entries;
+
+    /** current key of each vertex in the queue, valid if present */
+    private final double[] keys;
+
+    /** whether each vertex is in the queue */
+    private final boolean[] present;
+
+    /** number of vertices in the queue */
+    private int size;
+
+    /**
+     * Constructor.
+     * @param capacity  number of distinct vertex ids the queue can contain
+     */
+    public LazyDeletionHeap(int capacity) {
+        this.entryVertices = new int[Math.max(16, capacity)];
+        this.entryKeys = new double[entryVertices.length];
+        this.keys = new double[capacity];
+        this.present = new boolean[capacity];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return present[vertex];
+    }
+
+    public double getKey(int vertex) {
+        return keys[vertex];
+    }
+
+    public double minKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        dropStale();
+        return entryKeys[0];
+    }
+
+    public void insert(int vertex, double key) {
+        if (present[vertex]) {
+            throw new IllegalArgumentException("vertex " + vertex + " is already in the queue");
+        }
+        present[vertex] = true;
+        keys[vertex] = key;
+        size++;
+        push(vertex, key);
+    }
+
+    public void decreaseKey(int vertex, double newKey) {
+        if (!present[vertex]) {
+            throw new IllegalArgumentException("vertex " + vertex + " is not in the queue");
+        }
+        if (newKey > keys[vertex]) {
+            throw new IllegalArgumentException("new key is larger than the current key");
+        }
+        keys[vertex] = newKey;
+        push(vertex, newKey);
+    }
+
+    public int deleteMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        dropStale();
+        int min = entryVertices[0];
+        pop();
+        present[min] = false;
+        size--;
+        return min;
+    }
+
+    /**
+     * Remove every vertex from the queue.  This visits every entry, stale
+     * ones included.
+     */
+    public void clear() {
+        for (int i = 0; i < entries; i++) {
+            present[entryVertices[i]] = false;
+        }
+        entries = 0;
+        size = 0;
+    }
+
+    /**
+     * Pops entries off the top until the root is the live entry of its vertex.
+     * There is one as long as size is positive.
+     */
+    private void dropStale() {
+        while (true) {
+            int v = entryVertices[0];
+            if (present[v] && keys[v] == entryKeys[0]) {
+                return;
+            }
+            pop();
+        }
+    }
+
+    private void push(int vertex, double key) {
+        if (entries == entryVertices.length) {
+            entryVertices = Arrays.copyOf(entryVertices, entries * 2);
+            entryKeys = Arrays.copyOf(entryKeys, entries * 2);
+        }
+        int index = entries++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (key >= entryKeys[parent]) {
+                break;
+            }
+            entryKeys[index] = entryKeys[parent];
+            entryVertices[index] = entryVertices[parent];
+            index = parent;
+        }
+        entryKeys[index] = key;
+        entryVertices[index] = vertex;
+    }
+
+    /**
+     * Removes the root entry.
+     */
+    private void pop() {
+        entries--;
+        if (entries == 0) {
+            return;
+        }
+        int vertex = entryVertices[entries];
+        double key = entryKeys[entries];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= entries) {
+                break;
+            }
+            if (child + 1 < entries && entryKeys[child + 1] < entryKeys[child]) {
+                child++;
+            }
+            if (entryKeys[child] >= key) {
+                break;
+            }
+            entryKeys[index] = entryKeys[child];
+            entryVertices[index] = entryVertices[child];
+            index = child;
+        }
+        entryKeys[index] = key;
+        entryVertices[index] = vertex;
+    }
+}
@@ -0,0 +1,190 @@
+package pathfinder;
+/**
+ * PairingHeap.java
+ * A pairing heap of int vertex ids with double priorities (Fredman, Sedgewick,
+ * Sleator and Tarjan).  The tree is stored in arrays indexed by vertex id:
+ * each node has a first child, a next sibling and a back pointer to its
+ * previous sibling, or to its parent if it is a first child.  insert and
+ * decreaseKey link a single node with the root in O(1); deleteMin combines
+ * the root's children with the two-pass pairing rule in amortised O(log n).
+ * Vertex ids must lie in [0, capacity).
+ */
+
+import java.util.NoSuchElementException;
+
+public class PairingHeap implements VertexQueue {
+
+    /** end of a child or sibling list */
+    private static final int NONE = -1;
+
+    private final double[] keys;
+
+    /** first child of each node, or NONE */
+    private final int[] child;
+
+    /** next sibling of each node, or NONE */
+    private final int[] sibling;
+
+    /** previous sibling of each node, its parent if it is a first child, NONE for the root */
+    private final int[] back;
+
+    /** whether each vertex is in the heap */
+    private final boolean[] present;
+
+    /** scratch for deleteMin's pairs and clear's traversal */
+    private final int[] scratch;
+
+    private int root = NONE;
+
+    private int size;
+
+    /**
+     * Constructor.
+     * @param capacity  number of distinct vertex ids the heap can contain
+     */
+    public PairingHeap(int capacity) {
+        this.keys = new double[capacity];
+        this.child = new int[capacity];
+        this.sibling = new int[capacity];
+        this.back = new int[capacity];
+        this.present = new boolean[capacity];
+        this.scratch = new int[capacity];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return present[vertex];
+    }
+
+    public double getKey(int vertex) {
+        return keys[vertex];
+    }
+
+    public double minKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        return keys[root];
+    }
+
+    public void insert(int vertex, double key) {
+        if (present[vertex]) {
+            throw new IllegalArgumentException("vertex " + vertex + " is already in the heap");
+        }
+        present[vertex] = true;
+        keys[vertex] = key;
+        child[vertex] = NONE;
+        sibling[vertex] = NONE;
+        back[vertex] = NONE;
+        root = (root == NONE) ? vertex : link(root, vertex);
+        size++;
+    }
+
+    public void decreaseKey(int vertex, double newKey) {
+        if (!present[vertex]) {
+            throw new IllegalArgumentException("vertex " + vertex + " is not in the heap");
+        }
+        if (newKey > keys[vertex]) {
+            throw new IllegalArgumentException("new key is larger than the current key");
+        }
+        keys[vertex] = newKey;
+        if (vertex == root) {
+            return;
+        }
+        // cut the subtree of vertex out of its sibling list and link it with the root
+        int previous = back[vertex];
+        int next = sibling[vertex];
+        if (child[previous] == vertex) {
+            child[previous] = next;
+        } else {
+            sibling[previous] = next;
+        }
+        if (next != NONE) {
+            back[next] = previous;
+        }
+        sibling[vertex] = NONE;
+        back[vertex] = NONE;
+        root = link(root, vertex);
+    }
+
+    public int deleteMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        int min = root;
+        present[min] = false;
+        size--;
+
+        // first pass: link the children in pairs from left to right
+        int pairs = 0;
+        int c = child[min];
+        while (c != NONE) {
+            int a = c;
+            int b = sibling[a];
+            if (b == NONE) {
+                back[a] = NONE;
+                scratch[pairs++] = a;
+                break;
+            }
+            c = sibling[b];
+            sibling[a] = NONE;
+            back[a] = NONE;
+            sibling[b] = NONE;
+            back[b] = NONE;
+            scratch[pairs++] = link(a, b);
+        }
+        // second pass: link the pairs from right to left into one tree
+        root = NONE;
+        for (int i = pairs - 1; i >= 0; i--) {
+            root = (root == NONE) ? scratch[i] : link(scratch[i], root);
+        }
+        return min;
+    }
+
+    /**
+     * Remove every vertex from the heap, visiting each of them once.
+     */
+    public void clear() {
+        int top = 0;
+        if (root != NONE) {
+            scratch[top++] = root;
+        }
+        while (top > 0) {
+            int v = scratch[--top];
+            present[v] = false;
+            for (int c = child[v]; c != NONE; c = sibling[c]) {
+                scratch[top++] = c;
+            }
+        }
+        root = NONE;
+        size = 0;
+    }
+
+    /**
+     * Makes the root with the larger key the first child of the other.
+     * Both must be roots without siblings.
+     * @return  the root of the combined tree
+     */
+    private int link(int a, int b) {
+        if (keys[b] < keys[a]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        int first = child[a];
+        sibling[b] = first;
+        if (first != NONE) {
+            back[first] = b;
+        }
+        back[b] = a;
+        child[a] = b;
+        return a;
+    }
+}
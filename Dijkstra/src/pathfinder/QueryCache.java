@@ -0,0 +1,311 @@
+package pathfinder;
+/**
+ * QueryCache.java
+ * A bounded cache of shortest path results in front of a query engine, for
+ * traffic that asks the same origin and destination pairs over and over.
+ * Results are kept per (origin, destination) and evicted least recently
+ * used first once either the entry limit or the estimated memory limit is
+ * reached.  The cache is split into segments with a lock each, so
+ * concurrent queries rarely wait for one another; eviction is least
+ * recently used within a segment.
+ *
+ * When the graph behind the cache is Versioned, every result is tagged with
+ * the graph version it was computed at, and the first query that sees a
+ * newer version empties the cache, so no result outlives the graph it was
+ * computed on.  Two threads that miss on the same pair at once both compute
+ * it; the second result simply replaces the first.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import utility.Versioned;
+
+public class QueryCache {
+
+    /**
+     * Computes the results the cache holds.
+     */
+    public interface Solver {
+        /**
+         * Finds the shortest path between two vertices.  Called concurrently.
+         * @param origin    the starting vertex id
+         * @param destination   the ending vertex id
+         * @return the shortest path, or a result with isFound() false if there is none
+         */
+        ShortestPath solve(int origin, int destination);
+    }
+
+    /** upper bound on the number of segments */
+    private static final int SEGMENTS = 16;
+
+    /** estimated bytes of an entry besides its path: map node, key, entry and result objects */
+    private static final int ENTRY_BYTES = 128;
+
+    private final Solver solver;
+
+    /** the graph whose version is watched, or null if it never changes */
+    private final Versioned source;
+
+    private final Segment[] segments;
+
+    /** the graph version the cached results belong to */
+    private volatile long version;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Constructor for a cache in front of a QueryEngine.  The engine graph is
+     * watched for changes if it is Versioned.
+     * @param engine    answers the queries that miss
+     * @param maxEntries    the most results to keep
+     * @param maxBytes  the most estimated memory the results may take
+     */
+    public QueryCache(final QueryEngine engine, int maxEntries, long maxBytes) {
+        this(new Solver() {
+            public ShortestPath solve(int origin, int destination) {
+                return engine.shortestPath(origin, destination);
+            }
+        }, (engine.getGraph() instanceof Versioned) ? (Versioned) engine.getGraph() : null,
+                maxEntries, maxBytes);
+    }
+
+    /**
+     * Constructor.
+     * @param solver    answers the queries that miss
+     * @param source    the graph to watch for changes, or null if it never changes
+     * @param maxEntries    the most results to keep
+     * @param maxBytes  the most estimated memory the results may take
+     */
+    public QueryCache(Solver solver, Versioned source, int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("cache limits must be positive");
+        }
+        this.solver = solver;
+        this.source = source;
+        this.version = (source != null) ? source.version() : 0;
+        int count = Math.min(SEGMENTS, maxEntries);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // spread the limits so the segments add up to them exactly
+            int entries = maxEntries / count + ((i < maxEntries % count) ? 1 : 0);
+            long bytes = Math.max(1, maxBytes / count);
+            segments[i] = new Segment(entries, bytes);
+        }
+    }
+
+    /**
+     * Finds the shortest path between two vertices, from the cache if the
+     * pair has been asked since the graph last changed.  Safe to call
+     * concurrently.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath shortestPath(int origin, int destination) {
+        long current = currentVersion();
+        long key = ((long) origin << 32) | (destination & 0xFFFFFFFFL);
+        Segment segment = segmentFor(key);
+        ShortestPath result = segment.get(key, current);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        result = solver.solve(origin, destination);
+        segment.put(key, result, current);
+        return result;
+    }
+
+    /**
+     * Removes every cached result.  The statistics are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached results.
+     * @return the entry count
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the estimated memory the cached results take.
+     * @return the estimate in bytes
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of queries that had to be computed.
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of results evicted to stay within the limits.
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of results dropped because the graph changed.
+     * @return the invalidation count
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Gets the fraction of queries answered from the cache.
+     * @return hits divided by all queries, 0 before the first query
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return (total == 0) ? 0 : (double) hit / total;
+    }
+
+    public String toString() {
+        return "QueryCache[entries=" + size() + " bytes=" + getBytes() + " hits=" + getHits()
+                + " misses=" + getMisses() + " evictions=" + getEvictions()
+                + " invalidations=" + getInvalidations() + "]";
+    }
+
+    /**
+     * Reads the graph version and empties the cache if it has moved on.
+     */
+    private long currentVersion() {
+        if (source == null) {
+            return 0;
+        }
+        long current = source.version();
+        if (current > version) {
+            synchronized (this) {
+                // versions only grow, so a thread that read an older one never undoes a newer clear
+                if (current > version) {
+                    version = current;
+                    for (Segment segment : segments) {
+                        invalidations.add(segment.clear());
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private Segment segmentFor(long key) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return segments[((h ^ (h >>> 16)) & 0x7FFFFFFF) % segments.length];
+    }
+
+    /**
+     * A cached result and the graph version it was computed at.
+     */
+    private static class Entry {
+        final ShortestPath result;
+        final long version;
+        final int bytes;
+
+        Entry(ShortestPath result, long version) {
+            this.result = result;
+            this.version = version;
+            this.bytes = ENTRY_BYTES + 4 * result.getVertices().length;
+        }
+    }
+
+    /**
+     * One lock's share of the cache: an access-ordered map, so iteration
+     * starts at the least recently used entry.
+     */
+    private class Segment {
+        private final int maxEntries;
+        private final long maxBytes;
+        private final LinkedHashMap<Long, Entry> map = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+        private long bytes;
+
+        Segment(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized ShortestPath get(long key, long current) {
+            Entry entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version != current) {
+                map.remove(key);
+                bytes -= entry.bytes;
+                invalidations.increment();
+                return null;
+            }
+            return entry.result;
+        }
+
+        synchronized void put(long key, ShortestPath result, long current) {
+            Entry entry = new Entry(result, current);
+            Entry old = map.put(key, entry);
+            bytes += entry.bytes - ((old != null) ? old.bytes : 0);
+            Iterator<Map.Entry<Long, Entry>> eldest = map.entrySet().iterator();
+            while ((map.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                bytes -= evicted.bytes;
+                evictions.increment();
+            }
+        }
+
+        /**
+         * Removes every entry and returns how many there were.
+         */
+        synchronized int clear() {
+            int size = map.size();
+            map.clear();
+            bytes = 0;
+            return size;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package pathfinder;
+/**
+ * QueryEngine.java
+ * Answers shortest path queries on one IndexedGraph from any number of threads.
+ * The graph is never written to. Every query borrows a search context from a
+ * pool, uses it on the calling thread only and returns it afterwards, so
+ * concurrent queries share nothing but the graph and the pool itself.
+ * Queries and the rows of a distance matrix are recorded as dijkstra.Query
+ * Flight Recorder events while a recording has them enabled.
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import utility.IndexedGraph;
+
+public class QueryEngine {
+
+    private final IndexedGraph graph;
+
+    /** landmark tables for SearchMode.ALT, or null */
+    private final Landmarks landmarks;
+
+    /** contraction hierarchy for SearchMode.CH, or null */
+    private final ContractionHierarchy hierarchy;
+
+    /** idle search contexts; a context is owned by one thread while it is out of the pool */
+    private final ConcurrentLinkedQueue<SearchContext> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor.
+     * @param graph the graph to answer queries on
+     */
+    public QueryEngine(IndexedGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Constructor for an engine that can also answer SearchMode.ALT queries.
+     * @param graph the graph to answer queries on
+     * @param landmarks landmark tables computed on the same graph, may be null
+     */
+    public QueryEngine(IndexedGraph graph, Landmarks landmarks) {
+        this(graph, landmarks, null);
+    }
+
+    /**
+     * Constructor for an engine that can also answer SearchMode.ALT and
+     * SearchMode.CH queries.
+     * @param graph the graph to answer queries on
+     * @param landmarks landmark tables computed on the same graph, may be null
+     * @param hierarchy contraction hierarchy built on the same graph, may be null
+     */
+    public QueryEngine(IndexedGraph graph, Landmarks landmarks, ContractionHierarchy hierarchy) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Gets the graph this engine answers queries on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the shortest path between two vertices. Safe to call concurrently.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath shortestPath(int origin, int destination) {
+        return shortestPath(origin, destination, SearchMode.DIJKSTRA);
+    }
+
+    /**
+     * Finds the shortest path between two vertices with the given algorithm.
+     * Safe to call concurrently.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @param mode  the algorithm to use
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath shortestPath(int origin, int destination, SearchMode mode) {
+        SearchContext context = acquire();
+        try {
+            return context.findPath(origin, destination, mode);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Finds the shortest path between two vertices with Dijkstra's algorithm
+     * on the given priority queue.  Safe to call concurrently.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @param queue the priority queue to search with
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath shortestPath(int origin, int destination, QueueType queue) {
+        SearchContext context = acquire();
+        try {
+            return context.findPath(origin, destination, queue);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Computes the distance from an origin to every vertex and the shortest
+     * path tree behind them.  Safe to call concurrently.
+     * @param origin    the starting vertex id
+     * @return the shortest path tree of the origin
+     */
+    public ShortestPathTree shortestPathTree(int origin) {
+        SearchContext context = acquire();
+        try {
+            return ShortestPathTree.compute(context.dijkstra(), origin);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Computes the distance from every origin to every target, one worker
+     * thread per available processor.
+     * @param origins   the row vertex ids
+     * @param targets   the column vertex ids
+     * @return the distance matrix
+     */
+    public DistanceMatrix distanceMatrix(int[] origins, int[] targets) {
+        return distanceMatrix(origins, targets, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Computes the distance from every origin to every target.
+     * @param origins   the row vertex ids
+     * @param targets   the column vertex ids
+     * @param threads   number of worker threads, 1 to run on the calling thread
+     * @return the distance matrix
+     */
+    public DistanceMatrix distanceMatrix(int[] origins, int[] targets, int threads) {
+        return DistanceMatrix.compute(this, origins, targets, threads);
+    }
+
+    /**
+     * Finds the shortest path between two named vertices. Safe to call concurrently.
+     * @param originName    the name of the starting vertex
+     * @param destinationName   the name of the ending vertex
+     * @return the shortest path, or a result with isFound() false if there is none
+     * @throws IllegalArgumentException if either name is not in the graph
+     */
+    public ShortestPath shortestPath(Object originName, Object destinationName) {
+        return shortestPath(resolve(originName), resolve(destinationName));
+    }
+
+    /**
+     * Looks up the id of a vertex by name.
+     * @param name  a vertex name
+     * @return the vertex id
+     * @throws IllegalArgumentException if the name is not in the graph
+     */
+    public int resolve(Object name) {
+        int v = graph.vertexId(name);
+        if (v < 0) {
+            throw new IllegalArgumentException("No vertex named " + name);
+        }
+        return v;
+    }
+
+    /**
+     * Takes an idle search context from the pool, creating one if none is free.
+     */
+    SearchContext acquire() {
+        SearchContext context = pool.poll();
+        return (context != null) ? context : new SearchContext(graph, landmarks, hierarchy);
+    }
+
+    /**
+     * Returns a search context to the pool once the calling thread is done with it.
+     */
+    void release(SearchContext context) {
+        pool.offer(context);
+    }
+}
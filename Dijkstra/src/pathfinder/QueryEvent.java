@@ -0,0 +1,98 @@
+package pathfinder;
+/**
+ * QueryEvent.java
+ * The Flight Recorder event of one shortest path query, dijkstra.Query,
+ * committed by Dijkstra.findDijkstra and by the searches of SearchContext,
+ * which QueryEngine, BatchQuery and DistanceMatrix run.  Its duration is
+ * the search alone, without printing.  A distance matrix row is one event
+ * whose destination is the number of targets.
+ */
+
+import utility.FlightEvents;
+import utility.IndexedGraph;
+
+final class QueryEvent {
+
+    static final FlightEvents.Type TYPE = FlightEvents.define("Query", "Shortest Path Query",
+            "One shortest path query from an origin to a destination",
+            FlightEvents.field("search", "Search", String.class),
+            FlightEvents.field("origin", "Origin", String.class),
+            FlightEvents.field("destination", "Destination", String.class),
+            FlightEvents.field("found", "Path Found", boolean.class),
+            FlightEvents.field("distance", "Distance", double.class),
+            FlightEvents.field("settled", "Settled Vertices", long.class),
+            FlightEvents.field("heapSize", "Heap Size", int.class));
+
+    private QueryEvent() {
+    }
+
+    /**
+     * Fills in and commits the event of a query on an IndexedGraph if it is
+     * being recorded.  Vertex names are only looked up if it is.
+     * @param event the event begun before the search
+     * @param search    the algorithm that ran
+     * @param graph the graph searched
+     * @param path  the result of the search
+     * @param heapSize  vertices left in the heaps of the search at the end
+     */
+    static void commit(FlightEvents.Event event, String search, IndexedGraph graph, ShortestPath path,
+            int heapSize) {
+        if (event.isRecording()) {
+            commit(event, search, graph.vertexName(path.getOrigin()), graph.vertexName(path.getDestination()),
+                    path.isFound(), path.getDistance(), path.getSettledForward() + path.getSettledBackward(),
+                    heapSize);
+        }
+    }
+
+    /**
+     * Fills in and commits the event of a search from one origin to several
+     * targets if it is being recorded.  It counts as found if every target
+     * was reached, and its distance is that of the farthest target reached.
+     * @param event the event begun before the search
+     * @param graph the graph searched
+     * @param origin    the origin vertex id
+     * @param targets   the number of targets
+     * @param distances the distances found, POSITIVE_INFINITY for targets not reached
+     * @param offset    index in distances of the first target's distance
+     * @param settled   vertices settled by the search
+     * @param heapSize  vertices left in the heap at the end
+     */
+    static void commitTargets(FlightEvents.Event event, IndexedGraph graph, int origin, int targets,
+            double[] distances, int offset, long settled, int heapSize) {
+        if (!event.isRecording()) {
+            return;
+        }
+        boolean all = true;
+        double farthest = Double.POSITIVE_INFINITY;
+        for (int i = offset; i < offset + targets; i++) {
+            if (distances[i] == Double.POSITIVE_INFINITY) {
+                all = false;
+            } else if (farthest == Double.POSITIVE_INFINITY || distances[i] > farthest) {
+                farthest = distances[i];
+            }
+        }
+        commit(event, "DISTANCE_MATRIX", graph.vertexName(origin), targets + " targets", all, farthest,
+                settled, heapSize);
+    }
+
+    /**
+     * Fills in and commits a query event if it is being recorded.
+     * @param event the event begun before the search
+     * @param search    the algorithm that ran
+     * @param origin    the origin name
+     * @param destination   the destination name
+     * @param found whether a path was found
+     * @param distance  the path length, POSITIVE_INFINITY if none
+     * @param settled   vertices settled by the search
+     * @param heapSize  vertices left in the heap at the end, -1 if the search does not tell
+     */
+    static void commit(FlightEvents.Event event, String search, Object origin, Object destination,
+            boolean found, double distance, long settled, int heapSize) {
+        if (!event.isRecording()) {
+            return;
+        }
+        event.set(0, search).set(1, String.valueOf(origin)).set(2, String.valueOf(destination))
+                .set(3, found).set(4, distance).set(5, settled).set(6, heapSize);
+        event.commit();
+    }
+}
@@ -0,0 +1,471 @@
+package pathfinder;
+/**
+ * QueryServer.java
+ * A local shortest path server speaking a line protocol over TCP, so other
+ * services can ask for paths without the console loop of Dijkstra.main.
+ * The graph is loaded once and shared by every connection through a
+ * QueryEngine.  Requests, one per line, with vertex names as in the graph
+ * file:
+ *   PATH origin destination   answered by OK distance name... , NOPATH or ERR message
+ *   DIST origin destination   answered by OK distance, NOPATH or ERR message
+ *   BATCH n                   followed by n lines of "origin destination",
+ *                             answered by n lines as for PATH, in order
+ *   PING                      answered by PONG
+ *   QUIT                      closes the connection
+ *
+ * Each connection is served by its own thread: a virtual thread when the
+ * JVM has them (Java 21 and later), a pooled platform thread otherwise.
+ * Clients may pipeline requests, sending more before the answers arrive;
+ * answers come back in request order and are flushed only once no further
+ * complete request is waiting in the input, so a pipelined burst costs one
+ * write.  A BATCH whose count is missing or out of range is answered ERR and
+ * the connection is closed, since the lines after it could not be told
+ * apart from requests.  A line longer than the input buffer is answered
+ * "ERR line too long" and the connection is closed, so no client can make
+ * the server hold more than one buffer of its input.
+ *
+ * Backpressure is applied at two points.  At most maxInFlight queries are
+ * computed at once, and a connection waits for a permit before running its
+ * next query, so it stops reading and TCP flow control pushes back on the
+ * client.  Connections beyond maxConnections are answered BUSY and closed.
+ * The server listens on the loopback address only.
+ *
+ * Usage: java pathfinder.QueryServer graphfile [port]
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import utility.GraphInput;
+import utility.IndexedGraph;
+
+public class QueryServer implements Closeable {
+
+    /** the port the server listens on by default */
+    public static final int DEFAULT_PORT = 7470;
+
+    /** the most queries one BATCH request may hold */
+    private static final int MAX_BATCH = 100000;
+
+    /** size of each connection's input and output buffers */
+    private static final int BUFFER = 1 << 16;
+
+    private final QueryEngine engine;
+
+    private final ServerSocket server;
+
+    /** runs one task per connection */
+    private final ExecutorService connections;
+
+    /** true if connections run on virtual threads */
+    private final boolean virtual;
+
+    /** permits for open connections */
+    private final Semaphore connectionPermits;
+
+    /** permits for queries being computed */
+    private final Semaphore queryPermits;
+
+    /** sockets of the open connections, closed with the server */
+    private final Set<Socket> open = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final Thread acceptor;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructor.  Binds the port and starts accepting connections.
+     * @param engine    answers the queries
+     * @param port  the port to listen on, 0 for any free port
+     * @param maxConnections    the most connections served at once
+     * @param maxInFlight   the most queries computed at once
+     * @throws IOException if the port cannot be bound
+     */
+    public QueryServer(QueryEngine engine, int port, int maxConnections, int maxInFlight)
+            throws IOException {
+        if (maxConnections < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("server limits must be positive");
+        }
+        this.engine = engine;
+        this.connectionPermits = new Semaphore(maxConnections);
+        this.queryPermits = new Semaphore(maxInFlight);
+        ExecutorService executor = virtualThreadExecutor();
+        this.virtual = executor != null;
+        this.connections = virtual ? executor : Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "QueryServer-connection");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(new Runnable() {
+            public void run() {
+                accept();
+            }
+        }, "QueryServer-acceptor");
+        acceptor.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java pathfinder.QueryServer graphfile [port]");
+            return;
+        }
+        int port = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        IndexedGraph graph = GraphInput.LoadCSRGraph(args[0]);
+        if (graph == null) {
+            return;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        QueryServer server = new QueryServer(new QueryEngine(graph), port, 10000, 4 * cores);
+        System.out.println("Serving " + graph.numVertices() + " vertices on "
+                + server.server.getInetAddress().getHostAddress() + ":" + server.getPort()
+                + (server.virtual ? " with virtual threads." : " with platform threads."));
+    }
+
+    /**
+     * Gets the port the server listens on.
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Determines whether connections run on virtual threads.
+     * @return true on a JVM with virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    /**
+     * Gets the number of queries answered so far, batched ones included.
+     * @return the query count
+     */
+    public long getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * Gets the number of connections turned away because the server was full.
+     * @return the rejected connection count
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket socket : open) {
+            socket.close();
+        }
+        connections.shutdown();
+    }
+
+    /**
+     * Gets an executor that starts a virtual thread per task, or null if
+     * this JVM has none.  Looked up reflectively so the code still builds
+     * and runs on Java 8.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("QueryServer: accept failed: " + e.getMessage());
+                }
+                continue;
+            }
+            if (!connectionPermits.tryAcquire()) {
+                rejected.incrementAndGet();
+                try {
+                    socket.getOutputStream().write("BUSY\n".getBytes(StandardCharsets.US_ASCII));
+                    socket.close();
+                } catch (IOException e) {
+                    // the client is gone already
+                }
+                continue;
+            }
+            open.add(socket);
+            connections.execute(new Runnable() {
+                public void run() {
+                    try {
+                        serve(socket);
+                    } catch (IOException e) {
+                        // the connection broke; nothing to answer
+                    } finally {
+                        open.remove(socket);
+                        connectionPermits.release();
+                        try {
+                            socket.close();
+                        } catch (IOException e) {
+                            // already closed
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until it is closed or sends QUIT.
+     */
+    private void serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        LineReader in = new LineReader(socket.getInputStream(), BUFFER);
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), BUFFER);
+        IndexedGraph graph = engine.getGraph();
+        StringBuilder text = new StringBuilder(256);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                StringTokenizer tokens = new StringTokenizer(line);
+                String command = tokens.hasMoreTokens() ? tokens.nextToken().toUpperCase() : "";
+                text.setLength(0);
+                if (command.equals("PATH") || command.equals("DIST")) {
+                    query(graph, tokens, command.equals("PATH"), text);
+                } else if (command.equals("BATCH")) {
+                    int count = parseCount(tokens);
+                    if (count < 0) {
+                        out.write("ERR BATCH needs a count from 0 to " + MAX_BATCH + "\n");
+                        return;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        String request = in.readLine();
+                        if (request == null) {
+                            return;
+                        }
+                        query(graph, new StringTokenizer(request), true, text);
+                        if (text.length() >= BUFFER) {
+                            out.write(text.toString());
+                            text.setLength(0);
+                        }
+                    }
+                } else if (command.equals("PING")) {
+                    text.append("PONG\n");
+                } else if (command.equals("QUIT")) {
+                    return;
+                } else if (!command.isEmpty()) {
+                    text.append("ERR unknown command ").append(command).append('\n');
+                }
+                out.write(text.toString());
+                // answer a pipelined burst with one write, once no whole request is waiting
+                if (!in.hasLine()) {
+                    out.flush();
+                }
+            }
+        } catch (LineTooLongException e) {
+            out.write("ERR line too long\n");
+        } catch (SocketException e) {
+            // closed by the client or by close()
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                // the client is gone
+            }
+        }
+    }
+
+    private static int parseCount(StringTokenizer tokens) {
+        if (tokens.countTokens() != 1) {
+            return -1;
+        }
+        try {
+            int count = Integer.parseInt(tokens.nextToken());
+            return (count <= MAX_BATCH) ? count : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Answers one origin and destination pair and appends the answer line.
+     */
+    private void query(IndexedGraph graph, StringTokenizer tokens, boolean withPath, StringBuilder text)
+            throws IOException {
+        if (tokens.countTokens() != 2) {
+            text.append("ERR expected an origin and a destination\n");
+            return;
+        }
+        String originName = tokens.nextToken();
+        String destinationName = tokens.nextToken();
+        int origin = graph.vertexId(originName);
+        int destination = graph.vertexId(destinationName);
+        if (origin < 0 || destination < 0) {
+            text.append("ERR unknown vertex ").append((origin < 0) ? originName : destinationName).append('\n');
+            return;
+        }
+        ShortestPath path;
+        try {
+            queryPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SocketException("server is shutting down");
+        }
+        try {
+            path = engine.shortestPath(origin, destination);
+        } finally {
+            queryPermits.release();
+        }
+        queries.incrementAndGet();
+        if (!path.isFound()) {
+            text.append("NOPATH\n");
+            return;
+        }
+        text.append("OK ").append(path.getDistance());
+        if (withPath) {
+            for (int v : path.getVertices()) {
+                text.append(' ').append(graph.vertexName(v));
+            }
+        }
+        text.append('\n');
+    }
+
+    /**
+     * Thrown by LineReader when a line does not fit in its buffer.
+     */
+    private static class LineTooLongException extends IOException {
+        LineTooLongException() {
+            super("line too long");
+        }
+    }
+
+    /**
+     * Reads UTF-8 lines from a socket like BufferedReader.readLine(), and can
+     * tell whether a whole line has already arrived, where BufferedReader.ready()
+     * only tells whether any part of one has.  Lines must fit in the buffer.
+     */
+    private static class LineReader {
+
+        private final InputStream in;
+
+        private final byte[] buffer;
+
+        /** the next unread byte */
+        private int position;
+
+        /** one past the last byte read from the stream */
+        private int limit;
+
+        /** true if the last line ended with a carriage return, whose line feed is skipped */
+        private boolean skipLineFeed;
+
+        LineReader(InputStream in, int size) {
+            this.in = in;
+            this.buffer = new byte[size];
+        }
+
+        /**
+         * Reads the next line, ended by a line feed, a carriage return or both.
+         * @return the line without its ending, or null at the end of the stream
+         * @throws LineTooLongException if the line does not fit in the buffer
+         */
+        String readLine() throws IOException {
+            int scanned = position;
+            while (true) {
+                if (skipLineFeed && position < limit) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n') {
+                        position++;
+                        scanned = position;
+                    }
+                }
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer[i] == '\n' || buffer[i] == '\r') {
+                        String line = new String(buffer, position, i - position, StandardCharsets.UTF_8);
+                        skipLineFeed = buffer[i] == '\r';
+                        position = i + 1;
+                        return line;
+                    }
+                }
+                scanned = limit - position;
+                if (!fill()) {
+                    if (limit == position) {
+                        return null;
+                    }
+                    String line = new String(buffer, position, limit - position, StandardCharsets.UTF_8);
+                    position = limit;
+                    return line;
+                }
+            }
+        }
+
+        /**
+         * Determines whether a whole line is waiting in the buffer, so that
+         * readLine() will return it without blocking.
+         * @return true if a line ending has been read but not yet returned
+         */
+        boolean hasLine() {
+            int start = (skipLineFeed && position < limit && buffer[position] == '\n') ? position + 1 : position;
+            for (int i = start; i < limit; i++) {
+                if (buffer[i] == '\n' || buffer[i] == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves the unread bytes to the front and reads more after them.
+         * @return false at the end of the stream
+         * @throws LineTooLongException if the unread bytes already fill the buffer
+         */
+        private boolean fill() throws IOException {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            } else if (limit == buffer.length) {
+                throw new LineTooLongException();
+            }
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+    }
+}
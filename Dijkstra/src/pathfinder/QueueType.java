@@ -0,0 +1,56 @@
+package pathfinder;
+/**
+ * QueueType.java
+ * The priority queues a CSRDijkstra search can run on.  Which one is fastest
+ * depends on the graph and the query mix, so QueryEngine takes the choice per query.
+ */
+
+import utility.IndexedGraph;
+
+public enum QueueType {
+    /** IndexedDaryHeap with four children per node, the default */
+    DARY_HEAP,
+
+    /** IndexedDaryHeap with two children per node, breaking ties like BinaryHeap */
+    BINARY_HEAP,
+
+    /** LazyDeletionHeap, which pushes duplicates instead of decreasing keys */
+    LAZY_DELETION,
+
+    /** PairingHeap */
+    PAIRING,
+
+    /** FibonacciHeap */
+    FIBONACCI,
+
+    /** DialQueue; needs whole-number weights, e.g. from CSRGraph.quantize */
+    DIAL,
+
+    /** RadixHeap; needs whole-number weights, e.g. from CSRGraph.quantize */
+    RADIX;
+
+    /**
+     * Creates an empty queue of this type for searches on a graph.
+     * @param graph the graph the queue will be used on
+     * @return a queue with room for every vertex id of the graph
+     */
+    public VertexQueue create(IndexedGraph graph) {
+        int n = graph.numVertices();
+        switch (this) {
+            case BINARY_HEAP:
+                return new IndexedDaryHeap(n, 2);
+            case LAZY_DELETION:
+                return new LazyDeletionHeap(n);
+            case PAIRING:
+                return new PairingHeap(n);
+            case FIBONACCI:
+                return new FibonacciHeap(n);
+            case DIAL:
+                return new DialQueue(n, (long) Math.ceil(graph.maxArcWeight()));
+            case RADIX:
+                return new RadixHeap(n);
+            default:
+                return new IndexedDaryHeap(n, 4);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package pathfinder;
+/**
+ * RadixHeap.java
+ * A radix heap for non-negative integer keys (Ahuja, Mehlhorn, Orlin and Tarjan).
+ * A key k is kept in bucket i, where i is the position of the highest bit in
+ * which k differs from the last key removed, so bucket 0 holds keys equal to
+ * it and bucket 64 the most distant ones.  Buckets are doubly linked lists
+ * threaded through arrays indexed by vertex id, making insert and decreaseKey
+ * O(1).  deleteMin empties the first non-empty bucket into lower ones around
+ * its smallest key; a key only ever moves to lower buckets, so it costs
+ * amortised O(log C) when keys in the queue span at most C.
+ * The queue is monotone: no key may be smaller than the last key removed,
+ * which Dijkstra satisfies with non-negative weights.  Keys are passed as
+ * doubles and must be whole numbers.
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class RadixHeap implements VertexQueue {
+
+    /** key of a vertex that is not in the queue, and end of a bucket list */
+    private static final int NONE = -1;
+
+    /** bucket 0 for keys equal to the last minimum, then one per differing bit */
+    private static final int NUM_BUCKETS = 65;
+
+    /** first vertex of each bucket, or NONE */
+    private final int[] head = new int[NUM_BUCKETS];
+
+    /** next vertex in the same bucket, or NONE */
+    private final int[] next;
+
+    /** previous vertex in the same bucket, or NONE if first */
+    private final int[] prev;
+
+    /** bucket of each vertex in the queue */
+    private final byte[] bucket;
+
+    /** key of each vertex in the queue, or NONE */
+    private final long[] keys;
+
+    /** the last key removed; no key in the queue is smaller */
+    private long last;
+
+    private int size;
+
+    /** true until the first insert after construction or clear, which sets last */
+    private boolean fresh = true;
+
+    /**
+     * Constructor.
+     * @param capacity  number of distinct vertex ids the queue can contain
+     */
+    public RadixHeap(int capacity) {
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.bucket = new byte[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(keys, NONE);
+    }
+
+    /**
+     * Converts a key to a long, checking it is a non-negative whole number.
+     * @param key   a key
+     * @return  the key as a long
+     * @throws IllegalArgumentException if it is negative or has a fraction
+     */
+    static long integerKey(double key) {
+        long k = (long) key;
+        if (k != key || k < 0) {
+            throw new IllegalArgumentException("key is not a non-negative integer: " + key);
+        }
+        return k;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return keys[vertex] != NONE;
+    }
+
+    public double getKey(int vertex) {
+        return keys[vertex];
+    }
+
+    public double minKey() {
+        pull();
+        return last;
+    }
+
+    public void insert(int vertex, double key) {
+        if (keys[vertex] != NONE) {
+            throw new IllegalArgumentException("vertex " + vertex + " is already in the queue");
+        }
+        long k = integerKey(key);
+        if (fresh) {
+            last = k;
+            fresh = false;
+        } else if (k < last) {
+            throw new IllegalArgumentException("key " + k + " is below the last minimum " + last);
+        }
+        link(vertex, k);
+        size++;
+    }
+
+    public void decreaseKey(int vertex, double newKey) {
+        long old = keys[vertex];
+        if (old == NONE) {
+            throw new IllegalArgumentException("vertex " + vertex + " is not in the queue");
+        }
+        long k = integerKey(newKey);
+        if (k > old) {
+            throw new IllegalArgumentException("new key is larger than the current key");
+        }
+        if (k < last) {
+            throw new IllegalArgumentException("key " + k + " is below the last minimum " + last);
+        }
+        unlink(vertex);
+        link(vertex, k);
+    }
+
+    public int deleteMin() {
+        pull();
+        int min = head[0];
+        unlink(min);
+        keys[min] = NONE;
+        size--;
+        return min;
+    }
+
+    /**
+     * Remove every vertex from the queue.  Only the vertices still in the
+     * queue are visited, so this costs O(size()).
+     */
+    public void clear() {
+        fresh = true;
+        if (size == 0) {
+            return;
+        }
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            for (int v = head[b]; v != NONE; v = next[v]) {
+                keys[v] = NONE;
+            }
+            head[b] = NONE;
+        }
+        size = 0;
+    }
+
+    /**
+     * Makes bucket 0 non-empty: if it is empty, the first non-empty bucket is
+     * redistributed around its smallest key, which becomes the new last minimum.
+     */
+    private void pull() {
+        if (size == 0) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        if (head[0] != NONE) {
+            return;
+        }
+        int b = 1;
+        while (head[b] == NONE) {
+            b++;
+        }
+        long min = Long.MAX_VALUE;
+        for (int v = head[b]; v != NONE; v = next[v]) {
+            min = Math.min(min, keys[v]);
+        }
+        last = min;
+        int v = head[b];
+        head[b] = NONE;
+        while (v != NONE) {
+            int following = next[v];
+            link(v, keys[v]);
+            v = following;
+        }
+    }
+
+    private void link(int vertex, long key) {
+        int b = (key == last) ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+        int first = head[b];
+        keys[vertex] = key;
+        bucket[vertex] = (byte) b;
+        prev[vertex] = NONE;
+        next[vertex] = first;
+        if (first != NONE) {
+            prev[first] = vertex;
+        }
+        head[b] = vertex;
+    }
+
+    private void unlink(int vertex) {
+        int before = prev[vertex];
+        int after = next[vertex];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head[bucket[vertex]] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package pathfinder;
+/**
+ * ResumableSearch.java
+ * A Dijkstra search from one origin that can be stopped and picked up
+ * again.  The settled vertices, the frontier heap and the path pointers are
+ * kept between queries, so a destination that has already been settled is
+ * answered without searching, and a farther one continues the search from
+ * where the last query stopped.
+ *
+ * The state is sized to the vertices reached rather than to the graph: a
+ * reached vertex gets the next entry of a few parallel arrays, found through
+ * an open-addressing table keyed by vertex id, and the frontier is a binary
+ * heap of entries with lazy deletion like LazyDeletionHeap.  A search that
+ * has reached r vertices takes about 40r bytes.  Queries on one instance
+ * are serialized.
+ */
+
+import java.util.Arrays;
+
+import utility.IndexedGraph;
+
+class ResumableSearch {
+
+    private final IndexedGraph graph;
+
+    private final int origin;
+
+    /** the vertex id of each entry */
+    private int[] vertex;
+
+    /** the tentative distance of each entry, final once settled */
+    private double[] distance;
+
+    /** the entry of the previous vertex on the path to each entry; the origin points to itself */
+    private int[] parent;
+
+    /** whether each entry has been removed from the frontier */
+    private boolean[] settled;
+
+    /** number of entries */
+    private int reached;
+
+    /** entry + 1 of the vertex in each slot, 0 for an empty slot */
+    private int[] slots;
+
+    /** frontier entries in heap order, stale ones included */
+    private int[] heapEntries;
+
+    /** keys of the frontier entries in heap order */
+    private double[] heapKeys;
+
+    private int heapSize;
+
+    /** number of vertices settled so far */
+    private int settledCount;
+
+    /** the memory estimate as of the end of the last query, readable without the lock */
+    private volatile long bytes;
+
+    /**
+     * Constructor.  Nothing is searched until the first query.
+     * @param graph the graph to search, a frozen() view so that every
+     *              resumption sees the weights the search started with
+     * @param origin    the vertex id to search from
+     */
+    ResumableSearch(IndexedGraph graph, int origin) {
+        this.graph = graph;
+        this.origin = origin;
+        vertex = new int[16];
+        distance = new double[16];
+        parent = new int[16];
+        settled = new boolean[16];
+        slots = new int[32];
+        heapEntries = new int[16];
+        heapKeys = new double[16];
+        int entry = add(origin, 0, 0);
+        push(entry, 0);
+        bytes = estimate();
+    }
+
+    /**
+     * Gets the origin of this search.
+     * @return the origin vertex id
+     */
+    int getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Estimates the memory this search takes.  Does not wait for a running
+     * query, so it may lag behind one.
+     * @return the estimate in bytes
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Finds the shortest path from the origin to a destination, settling
+     * more vertices only if the destination has not been settled yet.
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there
+     *         is none; its forward settled count is the vertices this call settled
+     */
+    synchronized ShortestPath findPath(int destination) {
+        int before = settledCount;
+        int entry = entry(destination);
+        while (entry < 0 || !settled[entry]) {
+            int picked = pop();
+            if (picked < 0) {
+                bytes = estimate();
+                return ShortestPath.notFound(origin, destination, settledCount - before, 0);
+            }
+            settled[picked] = true;
+            settledCount++;
+            relax(picked);
+            if (entry < 0 && vertex[picked] == destination) {
+                entry = picked;
+            }
+        }
+        bytes = estimate();
+        return new ShortestPath(origin, destination, distance[entry], pathTo(entry),
+                settledCount - before, 0);
+    }
+
+    private long estimate() {
+        return 64 + 17L * vertex.length + 4L * slots.length + 12L * heapEntries.length;
+    }
+
+    /**
+     * Updates the distance of every vertex adjacent to a settled entry.
+     */
+    private void relax(int u) {
+        double base = distance[u];
+        for (int arc = graph.arcStart(vertex[u]), end = graph.arcEnd(vertex[u]); arc < end; arc++) {
+            int v = graph.arcTarget(arc);
+            double newWeight = base + graph.arcWeight(arc);
+            int slot = find(v);
+            if (slots[slot] == 0) {
+                push(add(v, newWeight, u), newWeight);
+            } else {
+                int e = slots[slot] - 1;
+                if (newWeight < distance[e]) {
+                    distance[e] = newWeight;
+                    parent[e] = u;
+                    push(e, newWeight);
+                }
+            }
+        }
+    }
+
+    private int[] pathTo(int entry) {
+        int length = 1;
+        for (int e = entry; parent[e] != e; e = parent[e]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int e = entry; length > 0; e = parent[e]) {
+            path[--length] = vertex[e];
+        }
+        return path;
+    }
+
+    /**
+     * Gets the entry of a vertex, or -1 if it has not been reached.
+     */
+    private int entry(int v) {
+        return slots[find(v)] - 1;
+    }
+
+    /**
+     * Finds the slot that holds a vertex, or the empty slot where it belongs.
+     */
+    private int find(int v) {
+        int mask = slots.length - 1;
+        int slot = mix(v) & mask;
+        int e;
+        while ((e = slots[slot]) != 0 && vertex[e - 1] != v) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gives a newly reached vertex the next entry.
+     */
+    private int add(int v, double weight, int last) {
+        int e = reached;
+        if (e == vertex.length) {
+            vertex = Arrays.copyOf(vertex, 2 * e);
+            distance = Arrays.copyOf(distance, 2 * e);
+            parent = Arrays.copyOf(parent, 2 * e);
+            settled = Arrays.copyOf(settled, 2 * e);
+        }
+        vertex[e] = v;
+        distance[e] = weight;
+        parent[e] = (e == 0) ? 0 : last;
+        reached++;
+        if (2 * reached > slots.length) {
+            slots = new int[2 * slots.length];
+            for (int i = 0; i < reached; i++) {
+                slots[find(vertex[i])] = i + 1;
+            }
+        } else {
+            slots[find(v)] = e + 1;
+        }
+        return e;
+    }
+
+    private void push(int entry, double key) {
+        if (heapSize == heapEntries.length) {
+            heapEntries = Arrays.copyOf(heapEntries, 2 * heapSize);
+            heapKeys = Arrays.copyOf(heapKeys, 2 * heapSize);
+        }
+        int index = heapSize++;
+        while (index > 0) {
+            int up = (index - 1) >>> 1;
+            if (key >= heapKeys[up]) {
+                break;
+            }
+            heapKeys[index] = heapKeys[up];
+            heapEntries[index] = heapEntries[up];
+            index = up;
+        }
+        heapKeys[index] = key;
+        heapEntries[index] = entry;
+    }
+
+    /**
+     * Removes the unsettled entry with the smallest distance from the
+     * frontier, skipping stale heap entries.
+     * @return the entry, or -1 once the frontier is empty
+     */
+    private int pop() {
+        while (heapSize > 0) {
+            int entry = heapEntries[0];
+            double key = heapKeys[0];
+            removeRoot();
+            if (!settled[entry] && key == distance[entry]) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private void removeRoot() {
+        heapSize--;
+        if (heapSize == 0) {
+            return;
+        }
+        int entry = heapEntries[heapSize];
+        double key = heapKeys[heapSize];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapKeys[index] = heapKeys[child];
+            heapEntries[index] = heapEntries[child];
+            index = child;
+        }
+        heapKeys[index] = key;
+        heapEntries[index] = entry;
+    }
+
+    private static int mix(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,173 @@
+package pathfinder;
+/**
+ * SearchContext.java
+ * The scratch state one QueryEngine query needs, for every search mode.
+ * Searches are created the first time their mode is used, so a context
+ * only holds arrays for the modes its thread has actually run.
+ * A context belongs to one thread at a time; QueryEngine hands them out
+ * from its pool.  Every search run through a context is recorded as a
+ * dijkstra.Query Flight Recorder event while a recording has them enabled.
+ * A DialQueue is sized for the heaviest arc, so its search runs on the
+ * frozen() weights it was sized for and is built again when a query finds
+ * the graph version has moved.
+ */
+
+import java.util.EnumMap;
+
+import utility.FlightEvents;
+import utility.IndexedGraph;
+import utility.Versioned;
+
+class SearchContext {
+
+    private final IndexedGraph graph;
+
+    /** landmark tables for ALT queries, or null if the engine has none */
+    private final Landmarks landmarks;
+
+    /** hierarchy for CH queries, or null if the engine has none */
+    private final ContractionHierarchy hierarchy;
+
+    private CSRDijkstra dijkstra;
+
+    /** Dijkstra searches on queues other than the default, by queue type */
+    private final EnumMap<QueueType, CSRDijkstra> byQueue = new EnumMap<>(QueueType.class);
+
+    /** the graph version the DIAL search's queue was sized at */
+    private long dialVersion;
+
+    private BidirectionalDijkstra bidirectional;
+
+    private AltSearch alt;
+
+    private CHQuery ch;
+
+    /**
+     * Constructor.
+     * @param graph the graph queries run on
+     * @param landmarks landmark tables for ALT queries, may be null
+     * @param hierarchy hierarchy for CH queries, may be null
+     */
+    SearchContext(IndexedGraph graph, Landmarks landmarks, ContractionHierarchy hierarchy) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Finds the shortest path between two vertices with the given algorithm.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @param mode  the algorithm to use
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    ShortestPath findPath(int origin, int destination, SearchMode mode) {
+        FlightEvents.Event event = QueryEvent.TYPE.begin();
+        ShortestPath path;
+        int heapSize;
+        switch (mode) {
+            case BIDIRECTIONAL:
+                if (bidirectional == null) {
+                    bidirectional = new BidirectionalDijkstra(graph);
+                }
+                path = bidirectional.findPath(origin, destination);
+                heapSize = bidirectional.heapSize();
+                break;
+            case ALT:
+                if (alt == null) {
+                    if (landmarks == null) {
+                        throw new IllegalStateException("ALT queries need an engine with landmarks");
+                    }
+                    alt = new AltSearch(graph, landmarks);
+                }
+                path = alt.findPath(origin, destination);
+                heapSize = alt.heapSize();
+                break;
+            case CH:
+                if (ch == null) {
+                    if (hierarchy == null) {
+                        throw new IllegalStateException("CH queries need an engine with a hierarchy");
+                    }
+                    ch = new CHQuery(hierarchy);
+                }
+                path = ch.findPath(origin, destination);
+                heapSize = ch.heapSize();
+                break;
+            default:
+                path = dijkstra().findPath(origin, destination);
+                heapSize = dijkstra.heapSize();
+        }
+        QueryEvent.commit(event, mode.name(), graph, path, heapSize);
+        return path;
+    }
+
+    /**
+     * Finds the shortest path between two vertices with Dijkstra's algorithm
+     * on the given priority queue.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @param queue the priority queue to search with
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    ShortestPath findPath(int origin, int destination, QueueType queue) {
+        FlightEvents.Event event = QueryEvent.TYPE.begin();
+        CSRDijkstra search = dijkstra(queue);
+        ShortestPath path = search.findPath(origin, destination);
+        QueryEvent.commit(event, queue.name(), graph, path, search.heapSize());
+        return path;
+    }
+
+    /**
+     * Computes the distances from an origin to a list of targets with the
+     * plain Dijkstra search, as CSRDijkstra.computeDistances does.
+     * @param origin    the starting vertex id
+     * @param targets   the vertex ids to find distances to
+     * @param distances receives the distance of targets[i] at distances[offset + i]
+     * @param offset    index in distances of the first target's distance
+     */
+    void computeDistances(int origin, int[] targets, double[] distances, int offset) {
+        FlightEvents.Event event = QueryEvent.TYPE.begin();
+        CSRDijkstra search = dijkstra();
+        int settled = search.computeDistances(origin, targets, distances, offset);
+        QueryEvent.commitTargets(event, graph, origin, targets.length, distances, offset, settled,
+                search.heapSize());
+    }
+
+    /**
+     * Gets the plain Dijkstra search of this context, creating it on first use.
+     * @return the search
+     */
+    CSRDijkstra dijkstra() {
+        if (dijkstra == null) {
+            dijkstra = new CSRDijkstra(graph);
+        }
+        return dijkstra;
+    }
+
+    /**
+     * Gets the Dijkstra search of this context that runs on the given queue,
+     * creating it on first use.
+     * @param queue the queue type
+     * @return the search
+     */
+    CSRDijkstra dijkstra(QueueType queue) {
+        if (queue == QueueType.DARY_HEAP) {
+            return dijkstra();
+        }
+        CSRDijkstra search = byQueue.get(queue);
+        if (queue == QueueType.DIAL) {
+            IndexedGraph view = graph.frozen();
+            if (search == null || dialVersion != Versioned.of(view)) {
+                dialVersion = Versioned.of(view);
+                search = new CSRDijkstra(view, queue.create(view));
+                byQueue.put(queue, search);
+            }
+            return search;
+        }
+        if (search == null) {
+            search = new CSRDijkstra(graph, queue.create(graph));
+            byQueue.put(queue, search);
+        }
+        return search;
+    }
+}
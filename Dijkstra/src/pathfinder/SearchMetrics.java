@@ -0,0 +1,146 @@
+package pathfinder;
+/**
+ * SearchMetrics.java
+ * Totals of the SearchStats of every instrumented query, for watching a
+ * running process.  When statistics are enabled the global instance is
+ * registered with the platform MBean server as pathfinder:type=SearchMetrics
+ * as soon as SearchStats or Dijkstra is loaded, so jconsole or any JMX client
+ * can read it from startup on.  Recording is safe from any
+ * number of threads.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class SearchMetrics implements SearchMetricsMBean {
+
+    /** the JMX name of the global instance */
+    public static final String OBJECT_NAME = "pathfinder:type=SearchMetrics";
+
+    private static final SearchMetrics GLOBAL = new SearchMetrics();
+
+    static {
+        if (SearchStats.ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                System.err.println("SearchMetrics: could not register with JMX: " + e.getMessage());
+            }
+        }
+    }
+
+    private final LongAdder queries = new LongAdder();
+
+    private final LongAdder settled = new LongAdder();
+
+    private final LongAdder relaxed = new LongAdder();
+
+    private final LongAdder inserts = new LongAdder();
+
+    private final LongAdder deleteMins = new LongAdder();
+
+    private final LongAdder decreaseKeys = new LongAdder();
+
+    private final LongAdder nanos = new LongAdder();
+
+    private final AtomicLong peakHeapSize = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Gets the instance the searches record into.
+     * @return the global metrics
+     */
+    public static SearchMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Adds the statistics of one query to the totals.
+     * @param stats the statistics of a finished query
+     */
+    public void record(SearchStats stats) {
+        queries.increment();
+        settled.add(stats.settled);
+        relaxed.add(stats.relaxed);
+        inserts.add(stats.inserts);
+        deleteMins.add(stats.deleteMins);
+        decreaseKeys.add(stats.decreaseKeys);
+        nanos.add(stats.nanos);
+        raise(peakHeapSize, stats.peakHeapSize);
+        raise(maxNanos, stats.nanos);
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    public long getSettledVertices() {
+        return settled.sum();
+    }
+
+    public long getRelaxedEdges() {
+        return relaxed.sum();
+    }
+
+    public long getHeapInserts() {
+        return inserts.sum();
+    }
+
+    public long getHeapDeleteMins() {
+        return deleteMins.sum();
+    }
+
+    public long getDecreaseKeys() {
+        return decreaseKeys.sum();
+    }
+
+    public long getPeakHeapSize() {
+        return peakHeapSize.get();
+    }
+
+    public double getTotalTimeMillis() {
+        return nanos.sum() / 1e6;
+    }
+
+    public double getMeanTimeMicros() {
+        long count = queries.sum();
+        return (count == 0) ? 0 : nanos.sum() / 1e3 / count;
+    }
+
+    public double getMaxTimeMicros() {
+        return maxNanos.get() / 1e3;
+    }
+
+    public void reset() {
+        queries.reset();
+        settled.reset();
+        relaxed.reset();
+        inserts.reset();
+        deleteMins.reset();
+        decreaseKeys.reset();
+        nanos.reset();
+        peakHeapSize.set(0);
+        maxNanos.set(0);
+    }
+
+    public String toString() {
+        return "SearchMetrics[queries=" + getQueries() + " settled=" + getSettledVertices()
+                + " relaxed=" + getRelaxedEdges() + " decreaseKeys=" + getDecreaseKeys()
+                + " peakHeap=" + getPeakHeapSize() + " meanUs=" + getMeanTimeMicros() + "]";
+    }
+
+    /**
+     * Raises a running maximum to a value if the value is larger.
+     */
+    private static void raise(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // another thread moved the maximum; look again
+        }
+    }
+}
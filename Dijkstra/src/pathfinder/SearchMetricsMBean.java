@@ -0,0 +1,32 @@
+package pathfinder;
+/**
+ * SearchMetricsMBean.java
+ * The JMX view of SearchMetrics: totals over every instrumented query since
+ * the JVM started or since the last reset.
+ */
+public interface SearchMetricsMBean {
+
+    long getQueries();
+
+    long getSettledVertices();
+
+    long getRelaxedEdges();
+
+    long getHeapInserts();
+
+    long getHeapDeleteMins();
+
+    long getDecreaseKeys();
+
+    /** the largest heap any query reached */
+    long getPeakHeapSize();
+
+    double getTotalTimeMillis();
+
+    double getMeanTimeMicros();
+
+    double getMaxTimeMicros();
+
+    /** sets every total back to 0 */
+    void reset();
+}
@@ -0,0 +1,21 @@
+package pathfinder;
+/**
+ * SearchMode.java
+ * The point-to-point algorithms a QueryEngine can run.
+ */
+public enum SearchMode {
+    /** one Dijkstra search from the origin, stopping at the destination */
+    DIJKSTRA,
+
+    /** Dijkstra searches from both ends that stop when they meet; among tied shortest paths it may pick another one */
+    BIDIRECTIONAL,
+
+    /** A* from the origin with landmark lower bounds; needs an engine with Landmarks */
+    ALT,
+
+    /**
+     * upward bidirectional search on a ContractionHierarchy; needs an engine with one.
+     * Among tied shortest paths it may pick another one, chosen by vertex rank
+     */
+    CH
+}
@@ -0,0 +1,125 @@
+package pathfinder;
+/**
+ * SearchSpace.java
+ * The per-query scratch state of one Dijkstra search direction: tentative
+ * distances, path pointers and the heap of reached but unsettled vertices.
+ * The arrays are never cleared between queries: an entry only counts if its
+ * generation stamp matches the current query, so a query costs time
+ * proportional to the vertices it reaches rather than to the graph size.
+ */
+
+import java.util.Arrays;
+
+class SearchSpace {
+
+    /** vertices reached but not yet settled, keyed by their heap priority */
+    final VertexQueue heap;
+
+    /** tentative distance of each vertex from the source, valid if stamped */
+    private final double[] distance;
+
+    /** previous vertex on the shortest path to each vertex, valid if stamped */
+    private final int[] parent;
+
+    /** the query generation in which each vertex was last reached */
+    private final int[] stamp;
+
+    /** the generation of the current query, never 0 */
+    private int generation;
+
+    /** number of vertices removed from the heap in the current query */
+    int settled;
+
+    /**
+     * Constructor.
+     * @param vertices  number of vertices in the graph
+     * @param arity number of children per heap node, one of 2, 4 or 8
+     */
+    SearchSpace(int vertices, int arity) {
+        this(vertices, new IndexedDaryHeap(vertices, arity));
+    }
+
+    /**
+     * Constructor.
+     * @param vertices  number of vertices in the graph
+     * @param queue the queue of reached vertices, with room for every vertex id
+     */
+    SearchSpace(int vertices, VertexQueue queue) {
+        this.heap = queue;
+        this.distance = new double[vertices];
+        this.parent = new int[vertices];
+        this.stamp = new int[vertices];
+        this.generation = 0;
+    }
+
+    /**
+     * Begins a new query generation, invalidating every entry of the previous one.
+     * The stamps are only cleared when the generation counter wraps around.
+     */
+    void start() {
+        heap.clear();
+        settled = 0;
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Determines whether a vertex has been reached in the current query.
+     * @param v a vertex id
+     * @return true if v has a tentative distance
+     */
+    boolean isReached(int v) {
+        return stamp[v] == generation;
+    }
+
+    /**
+     * Gets the tentative distance of a vertex in the current query.
+     * @param v a vertex id
+     * @return the distance, or POSITIVE_INFINITY if v has not been reached
+     */
+    double distance(int v) {
+        return (stamp[v] == generation) ? distance[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the previous vertex on the path to a reached vertex.
+     * @param v a vertex id that has been reached
+     * @return the path pointer of v
+     */
+    int parent(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Records a new tentative distance and path pointer for a vertex.
+     * @param v a vertex id
+     * @param weight    the new distance of v
+     * @param last  the previous vertex on the path to v
+     */
+    void reach(int v, double weight, int last) {
+        stamp[v] = generation;
+        distance[v] = weight;
+        parent[v] = last;
+    }
+
+    /**
+     * Collects the path from the source of this search to a reached vertex.
+     * @param source    the vertex the search started from
+     * @param v a reached vertex
+     * @return the vertex ids from source to v
+     */
+    int[] pathTo(int source, int v) {
+        int length = 1;
+        for (int u = v; u != source; u = parent[u]) {
+            length++;
+        }
+        int[] vertices = new int[length];
+        for (int u = v; length > 0; u = parent[u]) {
+            vertices[--length] = u;
+        }
+        return vertices;
+    }
+}
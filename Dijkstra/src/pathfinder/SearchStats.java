@@ -0,0 +1,113 @@
+package pathfinder;
+/**
+ * SearchStats.java
+ * What one Dijkstra.findDijkstra query did: vertices settled, edges
+ * relaxed, heap inserts, deleteMins and decreaseKeys, the largest size the
+ * heap reached and the wall time of the search.  Queries that settle many
+ * vertices or push the heap high show up here where the path alone would
+ * not say why they were slow.
+ *
+ * Statistics are only collected when the JVM is started with
+ * -Dpathfinder.stats=true.  ENABLED is a constant, so with the property
+ * unset the JIT compiles every counting statement away and the search runs
+ * exactly as before.
+ */
+public class SearchStats {
+
+    /** whether searches collect statistics, fixed when the class is loaded */
+    public static final boolean ENABLED = Boolean.getBoolean("pathfinder.stats");
+
+    static {
+        // SearchMetrics registers itself with JMX when it is loaded, so load it
+        // now and a client attached before the first query already finds it
+        if (ENABLED) {
+            SearchMetrics.global();
+        }
+    }
+
+    long settled;
+
+    long relaxed;
+
+    long inserts;
+
+    long deleteMins;
+
+    long decreaseKeys;
+
+    int peakHeapSize;
+
+    long nanos;
+
+    /**
+     * Gets the number of vertices removed from the heap.
+     * @return the settled vertex count
+     */
+    public long getSettled() {
+        return settled;
+    }
+
+    /**
+     * Gets the number of edges looked at from settled vertices.
+     * @return the relaxed edge count
+     */
+    public long getRelaxed() {
+        return relaxed;
+    }
+
+    /**
+     * Gets the number of heap inserts.
+     * @return the insert count
+     */
+    public long getInserts() {
+        return inserts;
+    }
+
+    /**
+     * Gets the number of heap deleteMins.
+     * @return the deleteMin count
+     */
+    public long getDeleteMins() {
+        return deleteMins;
+    }
+
+    /**
+     * Gets the number of decreaseKeys, one per relaxation that found a shorter path.
+     * @return the decreaseKey count
+     */
+    public long getDecreaseKeys() {
+        return decreaseKeys;
+    }
+
+    /**
+     * Gets the largest number of vertices the heap held at once.
+     * @return the peak heap size
+     */
+    public int getPeakHeapSize() {
+        return peakHeapSize;
+    }
+
+    /**
+     * Gets the wall time of the search, without printing the path.
+     * @return the time in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Counts a heap insert that left the heap with the given size.
+     */
+    void inserted(int heapSize) {
+        inserts++;
+        if (heapSize > peakHeapSize) {
+            peakHeapSize = heapSize;
+        }
+    }
+
+    public String toString() {
+        return "settled=" + settled + " relaxed=" + relaxed + " inserts=" + inserts
+                + " deleteMins=" + deleteMins + " decreaseKeys=" + decreaseKeys
+                + " peakHeap=" + peakHeapSize + " us=" + nanos / 1000;
+    }
+}
@@ -0,0 +1,205 @@
+package pathfinder;
+/**
+ * SearchTreeCache.java
+ * Answers shortest path queries by keeping the suspended Dijkstra searches
+ * of recently used origins.  A session that asks several destinations from
+ * one origin then pays for one search in total: a destination the search
+ * has already settled is answered by walking its path pointers, and a
+ * farther one resumes the search where the last query stopped.
+ *
+ * The retained searches are bounded by their number and by their estimated
+ * memory, and the least recently used origin is dropped first.  A single
+ * search that outgrows the memory limit on its own is dropped after the
+ * query that grew it.  If the graph is Versioned, every retained search is
+ * dropped as soon as a query sees the version move.
+ *
+ * Safe to call concurrently.  Queries from different origins run in
+ * parallel; queries from the same origin take turns on its search.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import utility.IndexedGraph;
+import utility.Versioned;
+
+public class SearchTreeCache {
+
+    private final IndexedGraph graph;
+
+    private final int maxOrigins;
+
+    private final long maxBytes;
+
+    /** retained searches by origin, least recently used first */
+    private final LinkedHashMap<Integer, ResumableSearch> searches =
+            new LinkedHashMap<Integer, ResumableSearch>(16, 0.75f, true);
+
+    /** the graph version the retained searches belong to */
+    private long version;
+
+    /** queries answered from vertices settled by earlier queries */
+    private final LongAdder hits = new LongAdder();
+
+    /** queries that resumed a retained search */
+    private final LongAdder resumes = new LongAdder();
+
+    /** queries that had to start a new search */
+    private final LongAdder starts = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param graph the graph to answer queries on
+     * @param maxOrigins    the most searches to retain
+     * @param maxBytes  the most estimated memory the retained searches may take
+     */
+    public SearchTreeCache(IndexedGraph graph, int maxOrigins, long maxBytes) {
+        if (maxOrigins < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("cache limits must be positive");
+        }
+        this.graph = graph;
+        this.maxOrigins = maxOrigins;
+        this.maxBytes = maxBytes;
+        this.version = Versioned.of(graph);
+    }
+
+    /**
+     * Gets the graph this cache answers queries on.
+     * @return the graph
+     */
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Finds the shortest path between two vertices, reusing the retained
+     * search of the origin if there is one.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there
+     *         is none; its forward settled count is the vertices this query settled
+     */
+    public ShortestPath shortestPath(int origin, int destination) {
+        ResumableSearch search;
+        boolean started = false;
+        synchronized (searches) {
+            // new searches run on the weights of the version they are kept for
+            IndexedGraph view = graph.frozen();
+            long current = Versioned.of(view);
+            if (current != version) {
+                evictions.add(searches.size());
+                searches.clear();
+                version = current;
+            }
+            search = searches.get(origin);
+            if (search == null) {
+                search = new ResumableSearch(view, origin);
+                searches.put(origin, search);
+                started = true;
+            }
+        }
+        ShortestPath result = search.findPath(destination);
+        if (started) {
+            starts.increment();
+        } else if (result.getSettledForward() == 0) {
+            hits.increment();
+        } else {
+            resumes.increment();
+        }
+        trim();
+        return result;
+    }
+
+    /**
+     * Drops every retained search.  The statistics are kept.
+     */
+    public void clear() {
+        synchronized (searches) {
+            searches.clear();
+        }
+    }
+
+    /**
+     * Gets the number of retained searches.
+     * @return the origin count
+     */
+    public int size() {
+        synchronized (searches) {
+            return searches.size();
+        }
+    }
+
+    /**
+     * Gets the estimated memory the retained searches take.
+     * @return the estimate in bytes
+     */
+    public long getBytes() {
+        synchronized (searches) {
+            long bytes = 0;
+            for (ResumableSearch search : searches.values()) {
+                bytes += search.getBytes();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Gets the number of queries answered without settling any vertex.
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of queries that resumed a retained search.
+     * @return the resume count
+     */
+    public long getResumes() {
+        return resumes.sum();
+    }
+
+    /**
+     * Gets the number of queries that started a new search.
+     * @return the start count
+     */
+    public long getStarts() {
+        return starts.sum();
+    }
+
+    /**
+     * Gets the number of searches dropped to stay within the limits or
+     * because the graph changed.
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public String toString() {
+        return "SearchTreeCache[origins=" + size() + " bytes=" + getBytes() + " hits=" + getHits()
+                + " resumes=" + getResumes() + " starts=" + getStarts()
+                + " evictions=" + getEvictions() + "]";
+    }
+
+    /**
+     * Drops least recently used searches until the limits are met.
+     */
+    private void trim() {
+        synchronized (searches) {
+            long bytes = 0;
+            for (ResumableSearch search : searches.values()) {
+                bytes += search.getBytes();
+            }
+            Iterator<ResumableSearch> eldest = searches.values().iterator();
+            while ((searches.size() > maxOrigins || bytes > maxBytes) && eldest.hasNext()) {
+                bytes -= eldest.next().getBytes();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package pathfinder;
+
+import utility.IndexedGraph;
+
+/**
+ * ShortestPath.java
+ * The result of a single origin to destination query on an IndexedGraph.
+ * Stores the total distance and the vertex ids along the path, in order
+ * from the origin to the destination.
+ */
+public class ShortestPath {
+    /**
+     * The vertex the path starts at
+     */
+    private final int origin;
+
+    /**
+     * The vertex the path ends at
+     */
+    private final int destination;
+
+    /**
+     * The total weight of the path, or POSITIVE_INFINITY if there is no path
+     */
+    private final double distance;
+
+    /**
+     * The vertices along the path, empty if there is no path
+     */
+    private final int[] vertices;
+
+    /**
+     * Number of vertices settled by the search from the origin
+     */
+    private final int settledForward;
+
+    /**
+     * Number of vertices settled by the search from the destination, 0 for one-way searches
+     */
+    private final int settledBackward;
+
+    /**
+     * Constructor.
+     * @param origin    the starting vertex of the query
+     * @param destination   the ending vertex of the query
+     * @param distance  the total weight of the path
+     * @param vertices  the vertex ids along the path, origin first
+     */
+    public ShortestPath(int origin, int destination, double distance, int[] vertices) {
+        this(origin, destination, distance, vertices, 0, 0);
+    }
+
+    /**
+     * Constructor.
+     * @param origin    the starting vertex of the query
+     * @param destination   the ending vertex of the query
+     * @param distance  the total weight of the path
+     * @param vertices  the vertex ids along the path, origin first
+     * @param settledForward    vertices settled searching from the origin
+     * @param settledBackward   vertices settled searching from the destination
+     */
+    public ShortestPath(int origin, int destination, double distance, int[] vertices,
+                        int settledForward, int settledBackward) {
+        this.origin = origin;
+        this.destination = destination;
+        this.distance = distance;
+        this.vertices = vertices;
+        this.settledForward = settledForward;
+        this.settledBackward = settledBackward;
+    }
+
+    /**
+     * Builds the result for a query whose destination cannot be reached.
+     * @param origin    the starting vertex of the query
+     * @param destination   the ending vertex of the query
+     * @return a result with no path and infinite distance
+     */
+    public static ShortestPath notFound(int origin, int destination) {
+        return notFound(origin, destination, 0, 0);
+    }
+
+    /**
+     * Builds the result for a query whose destination cannot be reached.
+     * @param origin    the starting vertex of the query
+     * @param destination   the ending vertex of the query
+     * @param settledForward    vertices settled searching from the origin
+     * @param settledBackward   vertices settled searching from the destination
+     * @return a result with no path and infinite distance
+     */
+    public static ShortestPath notFound(int origin, int destination,
+                                        int settledForward, int settledBackward) {
+        return new ShortestPath(origin, destination, Double.POSITIVE_INFINITY, new int[0],
+                settledForward, settledBackward);
+    }
+
+    /**
+     * Adds up the weights along a path from its first vertex onwards, the
+     * order in which a one-way search sums them.  Searches that combine partial
+     * distances use this so their result matches CSRDijkstra exactly.
+     * Where vertices are joined by several arcs, the lightest one counts.
+     * @param graph the graph the path runs in
+     * @param path  consecutive adjacent vertex ids
+     * @return the total weight of the path
+     */
+    static double pathLength(IndexedGraph graph, int[] path) {
+        double length = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            double weight = Double.POSITIVE_INFINITY;
+            for (int arc = graph.arcStart(path[i]), end = graph.arcEnd(path[i]); arc < end; arc++) {
+                if (graph.arcTarget(arc) == path[i + 1]) {
+                    weight = Math.min(weight, graph.arcWeight(arc));
+                }
+            }
+            length += weight;
+        }
+        return length;
+    }
+
+    /**
+     * Gets the starting vertex of the query.
+     * @return the origin vertex id
+     */
+    public int getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets the ending vertex of the query.
+     * @return the destination vertex id
+     */
+    public int getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the total weight of the path.
+     * @return the distance, or POSITIVE_INFINITY if no path exists
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Gets the vertices along the path.
+     * @return the vertex ids from origin to destination, empty if no path exists
+     */
+    public int[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Gets the number of vertices the search from the origin settled.
+     * @return the forward settled count
+     */
+    public int getSettledForward() {
+        return settledForward;
+    }
+
+    /**
+     * Gets the number of vertices the search from the destination settled.
+     * @return the backward settled count, 0 for one-way searches
+     */
+    public int getSettledBackward() {
+        return settledBackward;
+    }
+
+    /**
+     * Determines whether a path was found.
+     * @return true if the destination is reachable from the origin
+     */
+    public boolean isFound() {
+        return vertices.length > 0;
+    }
+
+    /**
+     * Prints the path and its total distance in the same format as
+     * Dijkstra.printShortestPath.
+     * @param graph the graph the query was run on, used to look up vertex names
+     */
+    public void print(IndexedGraph graph) {
+        if (!isFound()) {
+            System.out.println("No path found from " + graph.vertexName(origin)
+                    + " to " + graph.vertexName(destination));
+            return;
+        }
+        System.out.print("The shortest path goes through these cities: ");
+        for (int v : vertices) {
+            System.out.print(graph.vertexName(v) + " ");
+        }
+        System.out.println("\nThe total distance of this path is " + distance);
+    }
+}
@@ -0,0 +1,151 @@
+package pathfinder;
+/**
+ * ShortestPathTree.java
+ * The result of a one-to-all search: the distance from one origin to every
+ * vertex of the graph and the previous vertex on a shortest path to it,
+ * both indexed by vertex id.  Any destination's distance is a lookup and its
+ * path is recovered by following path pointers, without searching again.
+ */
+
+import utility.IndexedGraph;
+
+public class ShortestPathTree {
+    /**
+     * The vertex every path starts at
+     */
+    private final int origin;
+
+    /**
+     * Distance from the origin to each vertex, POSITIVE_INFINITY if unreachable
+     */
+    private final double[] distance;
+
+    /**
+     * Previous vertex on the shortest path to each vertex, -1 if unreachable
+     */
+    private final int[] parent;
+
+    /**
+     * Number of vertices reachable from the origin, including the origin
+     */
+    private final int reached;
+
+    /**
+     * Constructor.  The arrays are used as given.
+     * @param origin    the root of the tree
+     * @param distance  distance of each vertex from the origin
+     * @param parent    previous vertex of each vertex, the origin for the origin
+     * @param reached   number of vertices reachable from the origin
+     */
+    public ShortestPathTree(int origin, double[] distance, int[] parent, int reached) {
+        this.origin = origin;
+        this.distance = distance;
+        this.parent = parent;
+        this.reached = reached;
+    }
+
+    /**
+     * Runs a search from an origin until every reachable vertex is settled.
+     * @param search    the search to use
+     * @param origin    the root of the tree
+     * @return the shortest path tree of the origin
+     */
+    public static ShortestPathTree compute(CSRDijkstra search, int origin) {
+        int n = search.getGraph().numVertices();
+        double[] distance = new double[n];
+        int[] parent = new int[n];
+        int reached = search.computeDistances(origin, distance, parent);
+        return new ShortestPathTree(origin, distance, parent, reached);
+    }
+
+    /**
+     * Gets the root of the tree.
+     * @return the origin vertex id
+     */
+    public int getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets the number of vertices reachable from the origin.
+     * @return the reachable vertex count, including the origin
+     */
+    public int getReachedCount() {
+        return reached;
+    }
+
+    /**
+     * Determines whether a vertex can be reached from the origin.
+     * @param v a vertex id
+     * @return true if there is a path from the origin to v
+     */
+    public boolean isReachable(int v) {
+        return parent[v] >= 0;
+    }
+
+    /**
+     * Gets the distance from the origin to a vertex.
+     * @param v a vertex id
+     * @return the distance, or POSITIVE_INFINITY if v is unreachable
+     */
+    public double distanceTo(int v) {
+        return distance[v];
+    }
+
+    /**
+     * Gets the previous vertex on the shortest path to a vertex.
+     * @param v a vertex id
+     * @return the parent of v, the origin for the origin, or -1 if v is unreachable
+     */
+    public int parentOf(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Gets the distance array, indexed by vertex id.  The array is shared,
+     * not copied, and must not be modified.
+     * @return the distance of every vertex
+     */
+    public double[] getDistances() {
+        return distance;
+    }
+
+    /**
+     * Gets the path pointer array, indexed by vertex id.  The array is shared,
+     * not copied, and must not be modified.
+     * @return the parent of every vertex
+     */
+    public int[] getParents() {
+        return parent;
+    }
+
+    /**
+     * Extracts the shortest path to a destination in time proportional to its length.
+     * @param destination   a vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath pathTo(int destination) {
+        if (parent[destination] < 0) {
+            return ShortestPath.notFound(origin, destination);
+        }
+        int length = 1;
+        for (int v = destination; v != origin; v = parent[v]) {
+            length++;
+        }
+        int[] vertices = new int[length];
+        for (int v = destination; length > 0; v = parent[v]) {
+            vertices[--length] = v;
+        }
+        return new ShortestPath(origin, destination, distance[destination], vertices);
+    }
+
+    /**
+     * Prints the shortest path to a destination in the same format as
+     * Dijkstra.printShortestPath.
+     * @param graph the graph the tree was computed on
+     * @param destination   a vertex id
+     */
+    public void printPathTo(IndexedGraph graph, int destination) {
+        pathTo(destination).print(graph);
+    }
+}
@@ -0,0 +1,101 @@
+package pathfinder;
+/**
+ * SimpleGraphEngine.java
+ * Answers shortest path queries on a SimpleGraph that may still change.
+ * Queries run on a CSR copy of the graph through a QueryEngine, and the first
+ * query after SimpleGraph.version() has moved rebuilds the copy.  Vertex ids
+ * are positions in SimpleGraph.vertices(); the graph only ever appends
+ * vertices, so an id stays valid as the graph grows.  Every edge must carry
+ * its weight as a Double, as GraphInput stores it.
+ *
+ * SimpleGraph is not thread-safe: the graph may be changed between queries
+ * but not while one is running.  Put a QueryCache in front of the engine,
+ * with the engine as its Versioned source, to answer repeated queries
+ * without searching.
+ */
+
+import utility.CSRGraph;
+import utility.IndexedGraph;
+import utility.SimpleGraph;
+import utility.Versioned;
+
+public class SimpleGraphEngine implements QueryCache.Solver, Versioned {
+
+    private final SimpleGraph graph;
+
+    /** the engine on the latest copy, and the graph version it was copied at */
+    private volatile Copy current;
+
+    /**
+     * Constructor.
+     * @param graph the graph to answer queries on
+     */
+    public SimpleGraphEngine(SimpleGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Gets the version of the underlying SimpleGraph.
+     * @return the graph version
+     */
+    public long version() {
+        return graph.version();
+    }
+
+    /**
+     * Finds the shortest path between two vertices on the current graph.
+     * @param origin    the starting vertex id
+     * @param destination   the ending vertex id
+     * @return the shortest path, or a result with isFound() false if there is none
+     */
+    public ShortestPath solve(int origin, int destination) {
+        return engine().shortestPath(origin, destination);
+    }
+
+    /**
+     * Gets the CSR copy of the current graph, for looking up vertex names.
+     * @return the copy queries currently run on
+     */
+    public IndexedGraph getGraph() {
+        return engine().getGraph();
+    }
+
+    /**
+     * Looks up the id of a vertex by name.
+     * @param name  a vertex name
+     * @return the vertex id
+     * @throws IllegalArgumentException if the name is not in the graph
+     */
+    public int resolve(Object name) {
+        return engine().resolve(name);
+    }
+
+    /**
+     * Gets the engine for the current graph version, copying the graph if
+     * it has changed since the last copy.
+     */
+    private QueryEngine engine() {
+        long version = graph.version();
+        Copy copy = current;
+        if (copy == null || copy.version != version) {
+            synchronized (this) {
+                copy = current;
+                if (copy == null || copy.version != version) {
+                    copy = new Copy(version, new QueryEngine(CSRGraph.fromSimpleGraph(graph)));
+                    current = copy;
+                }
+            }
+        }
+        return copy.engine;
+    }
+
+    private static class Copy {
+        final long version;
+        final QueryEngine engine;
+
+        Copy(long version, QueryEngine engine) {
+            this.version = version;
+            this.engine = engine;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pathfinder;
+/**
+ * VertexQueue.java
+ * A priority queue of int vertex ids with double priorities, as used by the
+ * CSR searches.  Each vertex is in the queue at most once and is addressed by
+ * its id, so decreaseKey needs no handle from the caller.
+ * Vertex ids must lie in [0, capacity) of the implementation.
+ */
+public interface VertexQueue {
+
+    /**
+     * Determine whether the queue is empty.
+     * @return  true if the queue is empty; false otherwise
+     */
+    boolean isEmpty();
+
+    /**
+     * Return the number of vertices in the queue.
+     * @return  the queue size
+     */
+    int size();
+
+    /**
+     * Determine whether a vertex is currently in the queue.
+     * @param vertex    a vertex id
+     * @return  true if the vertex is in the queue
+     */
+    boolean contains(int vertex);
+
+    /**
+     * Return the key of a vertex in the queue.
+     * @param vertex    a vertex id that is in the queue
+     * @return  the key of the vertex
+     */
+    double getKey(int vertex);
+
+    /**
+     * Return the smallest key in the queue without removing it.
+     * @return  the minimum key
+     * @throws java.util.NoSuchElementException if the queue is empty
+     */
+    double minKey();
+
+    /**
+     * Insert a vertex into the queue.
+     * @param vertex    a vertex id that is not in the queue
+     * @param key   the priority of the vertex
+     */
+    void insert(int vertex, double key);
+
+    /**
+     * Lower the key of a vertex that is in the queue.
+     * @param vertex    a vertex id that is in the queue
+     * @param newKey    the new key, no larger than the current one
+     */
+    void decreaseKey(int vertex, double newKey);
+
+    /**
+     * Remove the vertex with minimum key from the queue.  Searches check
+     * isEmpty() first, so an empty queue here is a bug in the caller.
+     * @return  the vertex id with minimum key
+     * @throws java.util.NoSuchElementException if the queue is empty
+     */
+    int deleteMin();
+
+    /**
+     * Remove every vertex from the queue.
+     */
+    void clear();
+}
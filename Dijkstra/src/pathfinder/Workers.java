@@ -0,0 +1,126 @@
+package pathfinder;
+/**
+ * Workers.java
+ * A number of workers that split an index range between them.  The calling
+ * thread is worker 0 and the others run on one ForkJoinPool shared by every
+ * parallel loop, so a loop creates no threads and nothing needs shutting
+ * down.  The pool has one thread per available processor; more workers than
+ * that are allowed but take turns.
+ * Chunks are claimed dynamically, so uneven work per index still balances.
+ * Every call passes the worker number to the loop body, letting callers keep
+ * one scratch object per worker instead of per index.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class Workers {
+
+    /**
+     * The body of a parallel loop.
+     */
+    interface Body {
+        /**
+         * Processes the indices [from, to).
+         * @param worker    the number of the calling worker, in [0, threads)
+         * @param from  first index of the chunk
+         * @param to    one past the last index of the chunk
+         */
+        void run(int worker, int from, int to);
+    }
+
+    /**
+     * Holds the shared pool, which is created the first time a loop runs
+     * in parallel.  Its threads are daemons.
+     */
+    private static class Pool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private final int threads;
+
+    /**
+     * Constructor.
+     * @param threads   number of workers, 1 to run every loop on the calling thread
+     */
+    Workers(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Gets the number of workers.
+     * @return the worker count
+     */
+    int size() {
+        return threads;
+    }
+
+    /**
+     * Runs a loop body over [0, count) in chunks of at most grain indices and
+     * waits for all of them.
+     * @param count number of indices
+     * @param grain maximum chunk size
+     * @param body  the work for one chunk
+     */
+    void forRange(final int count, final int grain, final Body body) {
+        if (threads == 1 || count <= grain) {
+            if (count > 0) {
+                body.run(0, 0, count);
+            }
+            return;
+        }
+        final AtomicInteger next = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>(threads - 1);
+        for (int w = 1; w < threads; w++) {
+            final int worker = w;
+            tasks.add(Pool.INSTANCE.submit(new Runnable() {
+                public void run() {
+                    claim(worker, next, count, grain, body);
+                }
+            }));
+        }
+        try {
+            claim(0, next, count, grain, body);
+        } finally {
+            // the other workers may still be in a chunk, even if this one failed
+            await(tasks);
+        }
+    }
+
+    /**
+     * Runs chunks on the calling thread until none is left.
+     */
+    private static void claim(int worker, AtomicInteger next, int count, int grain, Body body) {
+        int from;
+        while ((from = next.getAndAdd(grain)) < count) {
+            body.run(worker, from, Math.min(from + grain, count));
+        }
+    }
+
+    /**
+     * Waits for the pool workers of a loop and rethrows the first failure.
+     */
+    private static void await(List<Future<?>> tasks) {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parallel loop interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("parallel loop failed", cause);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * ByteRegion.java
+ * A run of bytes outside the Java heap, addressed by a long offset, made of
+ * ByteBuffers of at most 1 GB each.  The buffers are either mapped from a
+ * file or allocated directly.  Values are little-endian, and callers keep
+ * them aligned to their size, so no value straddles two buffers.
+ */
+class ByteRegion {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /** the first allocation of a region that grows */
+    private static final int INITIAL_BYTES = 4096;
+
+    private ByteBuffer[] segments;
+
+    /** usable bytes */
+    private long capacity;
+
+    private ByteRegion(ByteBuffer[] segments, long capacity) {
+        this.segments = segments;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Maps part of a file read-only.
+     * @param channel   the file
+     * @param position  the first byte of the region in the file
+     * @param size  number of bytes
+     * @return  the region
+     */
+    static ByteRegion map(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[count(size)];
+        for (int i = 0; i < segments.length; i++) {
+            long offset = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.min(size - offset, 1L << SEGMENT_SHIFT)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new ByteRegion(segments, size);
+    }
+
+    /**
+     * Allocates zeroed direct memory.
+     * @param size  number of bytes
+     * @return  the region
+     */
+    static ByteRegion allocate(long size) {
+        ByteBuffer[] segments = new ByteBuffer[count(size)];
+        for (int i = 0; i < segments.length; i++) {
+            long offset = (long) i << SEGMENT_SHIFT;
+            segments[i] = direct((int) Math.min(size - offset, 1L << SEGMENT_SHIFT));
+        }
+        return new ByteRegion(segments, size);
+    }
+
+    /**
+     * Allocates a small region to be enlarged with ensure().
+     * @return  the region
+     */
+    static ByteRegion growable() {
+        return new ByteRegion(new ByteBuffer[] { direct(INITIAL_BYTES) }, INITIAL_BYTES);
+    }
+
+    /**
+     * Gets the number of usable bytes.
+     * @return  the capacity
+     */
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Enlarges the region to at least the given size, keeping its contents.
+     * Below 1 GB the single buffer is replaced by one twice as large; beyond
+     * that whole segments are added, so nothing is copied.
+     * @param size  the number of bytes needed
+     */
+    void ensure(long size) {
+        if (size <= capacity) {
+            return;
+        }
+        if (segments.length == 1 && capacity < (1L << SEGMENT_SHIFT)) {
+            long grown = Math.min(1L << SEGMENT_SHIFT, Math.max(size, 2 * capacity));
+            ByteBuffer copy = direct((int) grown);
+            ByteBuffer old = segments[0].duplicate();
+            old.clear();
+            copy.put(old);
+            copy.clear();
+            segments[0] = copy;
+            capacity = grown;
+        }
+        if (size > capacity) {
+            int count = count(size);
+            int old = segments.length;
+            segments = Arrays.copyOf(segments, count);
+            for (int i = old; i < count; i++) {
+                segments[i] = direct(1 << SEGMENT_SHIFT);
+            }
+            capacity = (long) count << SEGMENT_SHIFT;
+        }
+    }
+
+    int getInt(long at) {
+        return segments[(int) (at >>> SEGMENT_SHIFT)].getInt((int) (at & SEGMENT_MASK));
+    }
+
+    void putInt(long at, int value) {
+        segments[(int) (at >>> SEGMENT_SHIFT)].putInt((int) (at & SEGMENT_MASK), value);
+    }
+
+    long getLong(long at) {
+        return segments[(int) (at >>> SEGMENT_SHIFT)].getLong((int) (at & SEGMENT_MASK));
+    }
+
+    void putLong(long at, long value) {
+        segments[(int) (at >>> SEGMENT_SHIFT)].putLong((int) (at & SEGMENT_MASK), value);
+    }
+
+    double getDouble(long at) {
+        return segments[(int) (at >>> SEGMENT_SHIFT)].getDouble((int) (at & SEGMENT_MASK));
+    }
+
+    void putDouble(long at, double value) {
+        segments[(int) (at >>> SEGMENT_SHIFT)].putDouble((int) (at & SEGMENT_MASK), value);
+    }
+
+    byte getByte(long at) {
+        return segments[(int) (at >>> SEGMENT_SHIFT)].get((int) (at & SEGMENT_MASK));
+    }
+
+    void putByte(long at, byte value) {
+        segments[(int) (at >>> SEGMENT_SHIFT)].put((int) (at & SEGMENT_MASK), value);
+    }
+
+    private static int count(long size) {
+        return (int) Math.max(1, (size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    private static ByteBuffer direct(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,557 @@
+package utility;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * CSRGraph.java
+ * A graph stored in compressed sparse row form.  Its vertices and arcs are
+ * fixed; only edge weights can change, through setEdgeWeight() and
+ * setEdgeWeights().
+ *
+ * Vertices are numbered densely from 0 to numVertices() - 1.  The arcs
+ * leaving vertex v occupy the index range [arcStart(v), arcEnd(v)) of the
+ * targets array and of the weights, so scanning the neighbours of a vertex
+ * is a linear walk over primitive arrays.  Every undirected edge of the
+ * source graph is stored as two arcs, one in each direction, in the same
+ * order in which SimpleGraph would return them from incidentEdges().
+ *
+ * Queries may run while weights change.  The weights are kept in blocks of
+ * BLOCK_SIZE arcs, and a change never writes to a block that may be read:
+ * it copies the blocks it touches, and publishes them, together with the
+ * new version, in one volatile write of a frozen() view.  A batch of changes
+ * therefore costs time in the blocks it touches, not in the arc count, and
+ * is seen whole or not at all.  A search takes frozen() once when it starts
+ * and reads every weight from that view, so it sees one set of weights from
+ * start to end, without a volatile read per arc.
+ *
+ * Anything computed from the weights must record version() when it is
+ * built and compare it before use: Landmarks, ContractionHierarchy,
+ * DeltaStepping and the DialQueue searches of QueryEngine either throw
+ * IllegalStateException or rebuild themselves once the version has moved.
+ * QueryCache and SearchTreeCache drop their results, and a
+ * DynamicShortestPathTree is repaired through edgeChanged().
+ */
+public class CSRGraph implements IndexedGraph, Versioned {
+
+    /** offsets[v] is the index of the first arc of v; offsets[n] is the arc count */
+    private final int[] offsets;
+
+    /** the head vertex of each arc */
+    private final int[] targets;
+
+    /** log2 of the number of arcs per weight block */
+    private static final int BLOCK_BITS = 12;
+
+    /** arcs per weight block, the unit a weight change copies */
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /** the current weights and version; replaced, never written to, once the graph is built */
+    private volatile Frozen current;
+
+    /** the vertex names when they are all Strings, as they are when loaded from a file */
+    private final NameDictionary dictionary;
+
+    /** the name of each vertex, indexed by vertex id, if there is no dictionary */
+    private final Object[] names;
+
+    /** maps vertex names back to their ids, if there is no dictionary */
+    private final Map<Object, Integer> ids;
+
+    /**
+     * Constructor.  The arrays are used as given and must not be modified
+     * by the caller afterwards.  String names are kept in a NameDictionary;
+     * other names need a HashMap to be found by equals().
+     * @param offsets   arc offsets, one per vertex plus a final sentinel
+     * @param targets   head vertex of each arc
+     * @param weights   weight of each arc
+     * @param names     name of each vertex
+     */
+    CSRGraph(int[] offsets, int[] targets, double[] weights, Object[] names) {
+        this.offsets = offsets;
+        this.targets = targets;
+        if (allStrings(names)) {
+            NameDictionary dictionary = new NameDictionary(names.length);
+            for (Object name : names) {
+                dictionary.append((String) name);
+            }
+            dictionary.trim();
+            this.dictionary = dictionary;
+            this.names = null;
+            this.ids = null;
+        } else {
+            this.dictionary = null;
+            this.names = names;
+            this.ids = new HashMap<Object, Integer>(names.length * 2);
+            for (int v = 0; v < names.length; v++) {
+                if (names[v] != null) {
+                    ids.put(names[v], v);
+                }
+            }
+        }
+        this.current = new Frozen(this, blocks(weights), 0);
+    }
+
+    /**
+     * Constructor for a graph whose vertex names are the ids of a dictionary.
+     */
+    private CSRGraph(int[] offsets, int[] targets, double[] weights, NameDictionary dictionary) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.dictionary = dictionary;
+        this.names = null;
+        this.ids = null;
+        this.current = new Frozen(this, blocks(weights), 0);
+    }
+
+    /**
+     * Constructor for a graph sharing the structure and names of another.
+     */
+    private CSRGraph(CSRGraph structure, double[][] weights) {
+        this.offsets = structure.offsets;
+        this.targets = structure.targets;
+        this.dictionary = structure.dictionary;
+        this.names = structure.names;
+        this.ids = structure.ids;
+        this.current = new Frozen(this, weights, 0);
+    }
+
+    /**
+     * Splits the weight of each arc into blocks of BLOCK_SIZE arcs.
+     */
+    private static double[][] blocks(double[] weights) {
+        double[][] blocks = new double[(weights.length + BLOCK_MASK) >>> BLOCK_BITS][];
+        for (int b = 0; b < blocks.length; b++) {
+            int from = b << BLOCK_BITS;
+            blocks[b] = Arrays.copyOfRange(weights, from, Math.min(from + BLOCK_SIZE, weights.length));
+        }
+        return blocks;
+    }
+
+    /**
+     * Build a CSR copy of a SimpleGraph.  Vertex ids follow the order of
+     * SimpleGraph.vertices(); every edge must carry its weight as a Double
+     * in its data field, as GraphInput stores it.
+     * @param graph  the graph to copy
+     * @return  a CSR graph with the same vertices, edges and weights
+     */
+    public static CSRGraph fromSimpleGraph(SimpleGraph graph) {
+        int n = graph.numVertices();
+        Object[] names = new Object[n];
+        IdentityHashMap<Vertex, Integer> id = new IdentityHashMap<Vertex, Integer>(n);
+        int[] offsets = new int[n + 1];
+
+        int next = 0;
+        for (Iterator<Vertex> i = graph.vertices(); i.hasNext();) {
+            Vertex v = i.next();
+            names[next] = v.getName();
+            id.put(v, next);
+            offsets[next + 1] = offsets[next] + v.incidentEdgeList.size();
+            next++;
+        }
+
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        int arc = 0;
+        for (Iterator<Vertex> i = graph.vertices(); i.hasNext();) {
+            Vertex v = i.next();
+            for (Iterator<Edge> j = graph.incidentEdges(v); j.hasNext();) {
+                Edge e = j.next();
+                targets[arc] = id.get(graph.opposite(v, e));
+                weights[arc] = ((Double) e.getData()).doubleValue();
+                arc++;
+            }
+        }
+        return new CSRGraph(offsets, targets, weights, names);
+    }
+
+    /**
+     * Build a CSR graph from an undirected edge list.  Edge i joins
+     * tails[i] and heads[i] with weight weights[i]; each edge becomes two
+     * arcs.  The arcs of every vertex keep the order of the edge list.
+     * @param names     the name of each vertex, indexed by vertex id
+     * @param edgeCount number of edges to read from the three arrays
+     * @param tails     first endpoint of each edge
+     * @param heads     second endpoint of each edge
+     * @param weights   weight of each edge
+     * @return  a CSR graph containing the given edges
+     */
+    public static CSRGraph fromEdges(Object[] names, int edgeCount,
+                                     int[] tails, int[] heads, double[] weights) {
+        int n = names.length;
+        int[] offsets = offsets(n, edgeCount, tails, heads);
+        int[] arcTargets = new int[offsets[n]];
+        double[] arcWeights = new double[offsets[n]];
+        fill(offsets, edgeCount, tails, heads, weights, arcTargets, arcWeights);
+        return new CSRGraph(offsets, arcTargets, arcWeights, names);
+    }
+
+    /**
+     * Build a CSR graph from an undirected edge list whose vertex ids are
+     * the ids of a name dictionary, as fromEdges(Object[], ...) does.  The
+     * dictionary becomes part of the graph and must not be added to
+     * afterwards.
+     * @param names     the name of each vertex id
+     * @param edgeCount number of edges to read from the three arrays
+     * @param tails     first endpoint of each edge
+     * @param heads     second endpoint of each edge
+     * @param weights   weight of each edge
+     * @return  a CSR graph containing the given edges
+     */
+    public static CSRGraph fromEdges(NameDictionary names, int edgeCount,
+                                     int[] tails, int[] heads, double[] weights) {
+        int n = names.size();
+        int[] offsets = offsets(n, edgeCount, tails, heads);
+        int[] arcTargets = new int[offsets[n]];
+        double[] arcWeights = new double[offsets[n]];
+        fill(offsets, edgeCount, tails, heads, weights, arcTargets, arcWeights);
+        return new CSRGraph(offsets, arcTargets, arcWeights, names);
+    }
+
+    /**
+     * Counts the arcs of every vertex of an edge list into CSR offsets.
+     */
+    private static int[] offsets(int n, int edgeCount, int[] tails, int[] heads) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[tails[i] + 1]++;
+            offsets[heads[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        return offsets;
+    }
+
+    /**
+     * Writes both arcs of every edge, keeping the edge order per vertex.
+     */
+    private static void fill(int[] offsets, int edgeCount, int[] tails, int[] heads,
+                             double[] weights, int[] arcTargets, double[] arcWeights) {
+        int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < edgeCount; i++) {
+            int u = tails[i];
+            int v = heads[i];
+            arcTargets[fill[u]] = v;
+            arcWeights[fill[u]++] = weights[i];
+            arcTargets[fill[v]] = u;
+            arcWeights[fill[v]++] = weights[i];
+        }
+    }
+
+    /**
+     * Return the number of vertices in this graph.
+     * @return  the number of vertices
+     */
+    public int numVertices() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Return the number of arcs in this graph (twice the number of edges).
+     * @return  the number of arcs
+     */
+    public int numArcs() {
+        return targets.length;
+    }
+
+    /**
+     * Return the index of the first arc leaving a vertex.
+     * @param v  a vertex id
+     * @return  the first arc index of v
+     */
+    public int arcStart(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * Return one past the index of the last arc leaving a vertex.
+     * @param v  a vertex id
+     * @return  the end of the arc range of v
+     */
+    public int arcEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * Return the vertex an arc points to.
+     * @param arc  an arc index
+     * @return  the head vertex id of the arc
+     */
+    public int arcTarget(int arc) {
+        return targets[arc];
+    }
+
+    /**
+     * Return the weight of an arc.  Every call reads the current weights
+     * again; a search should read them from frozen() instead.
+     * @param arc  an arc index
+     * @return  the weight of the arc
+     */
+    public double arcWeight(int arc) {
+        return current.arcWeight(arc);
+    }
+
+    /**
+     * Return the name of a vertex.
+     * @param v  a vertex id
+     * @return  the name of the vertex
+     */
+    public Object vertexName(int v) {
+        return (dictionary != null) ? dictionary.name(v) : names[v];
+    }
+
+    /**
+     * Return the id of the vertex with the given name.
+     * @param name  a vertex name
+     * @return  the vertex id, or -1 if no vertex has that name
+     */
+    public int vertexId(Object name) {
+        if (dictionary != null) {
+            return (name instanceof String) ? dictionary.id((String) name) : -1;
+        }
+        Integer v = ids.get(name);
+        return (v == null) ? -1 : v.intValue();
+    }
+
+    private static boolean allStrings(Object[] names) {
+        for (Object name : names) {
+            if (!(name instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the version of this graph, which setEdgeWeight() and
+     * setEdgeWeights() move forward.
+     * @return  the number of weight updates published so far
+     */
+    public long version() {
+        return current.version;
+    }
+
+    /**
+     * Return a view of this graph with the weights and version it has now,
+     * which later weight changes leave as they are.  Taking it allocates
+     * nothing.
+     * @return  the current view
+     */
+    public IndexedGraph frozen() {
+        return current;
+    }
+
+    /**
+     * Change the weight of the edge between two vertices, on both of its
+     * arcs.  If there are parallel edges, the first arc from u to v and a
+     * reverse arc of the same weight are changed.  The version moves forward,
+     * so a QueryCache or SearchTreeCache on this graph drops its results, and
+     * a DynamicShortestPathTree can repair itself with edgeChanged().
+     * Landmarks and ContractionHierarchy tables computed on this graph are
+     * not updated; queries that use them throw IllegalStateException until
+     * they are rebuilt.
+     *
+     * Every call copies a block of weights and publishes a new version, so
+     * apply many changes at once with setEdgeWeights().
+     * @param u  one endpoint, a vertex id
+     * @param v  the other endpoint, a vertex id
+     * @param weight  the new weight, not negative
+     * @return  the old weight
+     * @throws IllegalArgumentException if there is no edge between u and v
+     */
+    public double setEdgeWeight(int u, int v, double weight) {
+        return setEdgeWeights(new int[] { u }, new int[] { v }, new double[] { weight })[0];
+    }
+
+    /**
+     * Change the weights of several edges, as setEdgeWeight() changes one,
+     * and publish them together: queries see either none of the changes or
+     * all of them, and the version moves forward once.  The changes are
+     * applied in order, so an edge listed twice ends up with its last weight.
+     * If any change is invalid, none is made.
+     * @param us    one endpoint of each edge
+     * @param vs    the other endpoint of each edge
+     * @param newWeights    the new weight of each edge, not negative
+     * @return  the weight each edge had just before its change
+     * @throws IllegalArgumentException if the arrays differ in length, a
+     *         weight is negative or there is no edge between some us[i] and vs[i]
+     */
+    public synchronized double[] setEdgeWeights(int[] us, int[] vs, double[] newWeights) {
+        if (us.length != vs.length || us.length != newWeights.length) {
+            throw new IllegalArgumentException("need one endpoint pair per weight");
+        }
+        Frozen before = current;
+        double[][] changed = before.weights.clone();
+        // the blocks already copied by this batch, which may be written to
+        boolean[] copied = new boolean[changed.length];
+        double[] old = new double[us.length];
+        for (int i = 0; i < us.length; i++) {
+            int u = us[i];
+            int v = vs[i];
+            double weight = newWeights[i];
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("weight must not be negative: " + weight);
+            }
+            int forward = findArc(changed, u, v, Double.NaN, -1);
+            if (forward < 0) {
+                throw new IllegalArgumentException("no edge between " + u + " and " + v);
+            }
+            old[i] = changed[forward >>> BLOCK_BITS][forward & BLOCK_MASK];
+            // a self-loop has both of its arcs in the range of u, so skip the first one
+            int backward = findArc(changed, v, u, old[i], forward);
+            write(changed, copied, forward, weight);
+            if (backward >= 0) {
+                write(changed, copied, backward, weight);
+            }
+        }
+        // the new weights are visible to whoever sees the new version
+        current = new Frozen(this, changed, before.version + 1);
+        return old;
+    }
+
+    /**
+     * Find the first arc from u to v other than skip, of the given weight
+     * unless the weight is NaN, or -1.
+     */
+    private int findArc(double[][] weights, int u, int v, double weight, int skip) {
+        for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+            if (targets[arc] == v && arc != skip
+                    && (Double.isNaN(weight) || weights[arc >>> BLOCK_BITS][arc & BLOCK_MASK] == weight)) {
+                return arc;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write the weight of an arc into a batch, copying its block the first
+     * time the batch touches it.
+     */
+    private static void write(double[][] weights, boolean[] copied, int arc, double weight) {
+        int block = arc >>> BLOCK_BITS;
+        if (!copied[block]) {
+            weights[block] = weights[block].clone();
+            copied[block] = true;
+        }
+        weights[block][arc & BLOCK_MASK] = weight;
+    }
+
+    /**
+     * Return the largest arc weight in this graph.
+     * @return  the maximum weight, or 0 if there are no arcs
+     */
+    public double maxArcWeight() {
+        return current.maxArcWeight();
+    }
+
+    /**
+     * Return a copy of this graph with every weight rounded to a whole number
+     * of units, so that path lengths are integers and the graph can be searched
+     * with an integer-keyed queue such as DialQueue or RadixHeap.  A unit of 1
+     * rounds the weights to the nearest integer.  Weights smaller than half a
+     * unit become 0.
+     * @param unit  the weight that becomes 1 in the copy
+     * @return  a graph with the same vertices and arcs and integer weights
+     */
+    public CSRGraph quantize(double unit) {
+        if (!(unit > 0)) {
+            throw new IllegalArgumentException("unit must be positive: " + unit);
+        }
+        double[][] weights = current.weights;
+        double[][] rounded = new double[weights.length][];
+        for (int b = 0; b < weights.length; b++) {
+            rounded[b] = new double[weights[b].length];
+            for (int i = 0; i < rounded[b].length; i++) {
+                rounded[b][i] = Math.round(weights[b][i] / unit);
+            }
+        }
+        return new CSRGraph(this, rounded);
+    }
+
+    /**
+     * The graph with one set of weights, as frozen() returns it.  It shares
+     * everything but the weight blocks with the graph, and its fields are
+     * final, so a search reading arc after arc from it needs no volatile read.
+     */
+    private static final class Frozen implements IndexedGraph, Versioned {
+
+        private final CSRGraph graph;
+
+        private final int[] offsets;
+
+        private final int[] targets;
+
+        /** the weight of each arc in blocks of BLOCK_SIZE; never written to */
+        private final double[][] weights;
+
+        private final long version;
+
+        Frozen(CSRGraph graph, double[][] weights, long version) {
+            this.graph = graph;
+            this.offsets = graph.offsets;
+            this.targets = graph.targets;
+            this.weights = weights;
+            this.version = version;
+        }
+
+        public int numVertices() {
+            return offsets.length - 1;
+        }
+
+        public int numArcs() {
+            return targets.length;
+        }
+
+        public int arcStart(int v) {
+            return offsets[v];
+        }
+
+        public int arcEnd(int v) {
+            return offsets[v + 1];
+        }
+
+        public int arcTarget(int arc) {
+            return targets[arc];
+        }
+
+        public double arcWeight(int arc) {
+            return weights[arc >>> BLOCK_BITS][arc & BLOCK_MASK];
+        }
+
+        public Object vertexName(int v) {
+            return graph.vertexName(v);
+        }
+
+        public int vertexId(Object name) {
+            return graph.vertexId(name);
+        }
+
+        public double maxArcWeight() {
+            double max = 0;
+            for (double[] block : weights) {
+                for (double weight : block) {
+                    max = Math.max(max, weight);
+                }
+            }
+            return max;
+        }
+
+        public IndexedGraph frozen() {
+            return this;
+        }
+
+        /**
+         * Return the version of the graph these weights belong to.
+         * @return  the number of weight updates published before them
+         */
+        public long version() {
+            return version;
+        }
+    }
+}
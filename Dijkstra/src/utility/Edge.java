@@ -26,6 +26,9 @@ public class Edge {
     
     private Object data;  // an object associated with this edge
     private Object name;  // a name associated with this edge
+
+    /** the graph this edge was inserted into, told when the data changes */
+    SimpleGraph graph;
     
     /**
      * Constructor that allows data and a name to be associated
@@ -67,11 +70,15 @@ public class Edge {
     }
         
     /**
-     * Set the data associated with this edge.
+     * Set the data associated with this edge.  The data is the edge weight,
+     * so this counts as a change of the graph the edge belongs to.
      * @param data  the data of this edge
      */
     public void setData(Object data) {
         this.data = data;
+        if (graph != null) {
+            graph.changed();
+        }
     }
     
     /**
@@ -0,0 +1,457 @@
+package utility;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * FastGraphLoader.java
+ * Loads the three-column edge list format of GraphInput at a rate close to
+ * disk bandwidth.  The file is split at line boundaries into chunks that are
+ * memory-mapped and parsed in parallel.  Parsing works on the mapped bytes:
+ * names are interned by their bytes in a per-chunk NameDictionary, and
+ * weights are converted straight from their digits, so no String is created
+ * per token, nor per vertex when loading a CSRGraph.  The chunk results are
+ * then merged in file order, so vertex ids follow first appearance in the
+ * file and edges keep their file order, exactly as GraphInput assigns them.
+ *
+ * Lines are split like BufferedReader.readLine and tokens like
+ * StringTokenizer, and a weight is the double Double.parseDouble gives, so
+ * the loaded graph is identical to the one GraphInput loads wherever the
+ * platform charset is UTF-8, the default since Java 18; names are always
+ * read as UTF-8.
+ */
+public class FastGraphLoader {
+
+    /** bounds on the length of a chunk, before it is extended to a line end */
+    private static final int MIN_CHUNK = 1 << 20;
+    private static final int MAX_CHUNK = 1 << 28;
+
+    /** the longest decimal mantissa that converts exactly, 2^53 */
+    private static final long MAX_EXACT = 1L << 53;
+
+    /** powers of ten that are exact doubles */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Load graph data from a text file into a CSRGraph, one parsing thread
+     * per available processor.
+     * @param pathandfilename  the name of the file, including full path.
+     * @return  the loaded graph, or null if the file is malformed
+     */
+    public static CSRGraph loadCSRGraph(String pathandfilename) {
+        return loadCSRGraph(pathandfilename, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Load graph data from a text file into a CSRGraph.
+     * @param pathandfilename  the name of the file, including full path.
+     * @param threads   number of parsing threads, 1 to parse on the calling thread
+     * @return  the loaded graph, or null if the file is malformed
+     */
+    public static CSRGraph loadCSRGraph(String pathandfilename, int threads) {
+        EdgeList edges = parse(pathandfilename, threads);
+        if (edges == null) {
+            return null;
+        }
+        return CSRGraph.fromEdges(edges.names, edges.count, edges.tails, edges.heads, edges.weights);
+    }
+
+    /**
+     * Load graph data from a text file into a SimpleGraph, like
+     * GraphInput.LoadSimpleGraph.  Vertices are inserted in order of first
+     * appearance and edges in file order, so the graph is built exactly as
+     * GraphInput builds it.
+     * @param newgraph  a graph to add edges to. newgraph should already be initialized
+     * @param pathandfilename  the name of the file, including full path.
+     * @return  a hash table of (String, Vertex) pairs, or null if the file is malformed
+     */
+    public static Hashtable<String, Vertex> loadSimpleGraph(SimpleGraph newgraph,
+                                                            String pathandfilename) {
+        EdgeList edges = parse(pathandfilename, Runtime.getRuntime().availableProcessors());
+        if (edges == null) {
+            return null;
+        }
+        Vertex[] vertices = new Vertex[edges.names.size()];
+        Hashtable<String, Vertex> table = new Hashtable<String, Vertex>(2 * vertices.length + 1);
+        for (int v = 0; v < vertices.length; v++) {
+            String name = edges.names.name(v);
+            vertices[v] = newgraph.insertVertex(null, name);
+            table.put(name, vertices[v]);
+        }
+        for (int e = 0; e < edges.count; e++) {
+            newgraph.insertEdge(vertices[edges.tails[e]], vertices[edges.heads[e]],
+                    Double.valueOf(edges.weights[e]), null);
+        }
+        return table;
+    }
+
+    /**
+     * The merged result of parsing a whole file.
+     */
+    private static class EdgeList {
+        NameDictionary names;
+        int count;
+        int[] tails;
+        int[] heads;
+        double[] weights;
+    }
+
+    /**
+     * Parses a file into an edge list, or returns null after reporting the
+     * first malformed line.
+     */
+    private static EdgeList parse(String pathandfilename, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        try (RandomAccessFile file = new RandomAccessFile(pathandfilename, "r");
+             FileChannel channel = file.getChannel()) {
+            System.out.println("Opened " + pathandfilename + " for input.");
+            long size = channel.size();
+            long target = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (4L * threads) + 1));
+            for (long start = 0; start < size; ) {
+                long end = lineEnd(channel, Math.min(size, start + target), size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new InputLib.InputError("line too long near offset " + start);
+                }
+                chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new InputLib.InputError(e.getMessage());
+        }
+
+        runAll(chunks, threads, new ChunkTask() {
+            public void run(Chunk chunk) {
+                chunk.parse();
+            }
+        });
+
+        // report the first bad line with its line number in the whole file
+        int lines = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.badLine >= 0) {
+                System.err.println("Error:invalid number of tokens found on line "
+                        + (lines + chunk.badLine + 1) + "!");
+                return null;
+            }
+            lines += chunk.count;
+        }
+
+        // merge the name tables in file order, so global ids follow first appearance
+        final NameDictionary global = new NameDictionary();
+        final EdgeList edges = new EdgeList();
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            chunk.offset = offset;
+            offset += chunk.count;
+            NameDictionary local = chunk.names;
+            chunk.toGlobal = new int[local.size()];
+            for (int id = 0; id < local.size(); id++) {
+                chunk.toGlobal[id] = global.add(local, id);
+            }
+            // the local table is no longer needed
+            chunk.names = null;
+        }
+        edges.count = offset;
+        edges.tails = new int[offset];
+        edges.heads = new int[offset];
+        edges.weights = new double[offset];
+        runAll(chunks, threads, new ChunkTask() {
+            public void run(Chunk chunk) {
+                int[] toGlobal = chunk.toGlobal;
+                for (int i = 0; i < chunk.count; i++) {
+                    edges.tails[chunk.offset + i] = toGlobal[chunk.tails[i]];
+                    edges.heads[chunk.offset + i] = toGlobal[chunk.heads[i]];
+                }
+                System.arraycopy(chunk.weights, 0, edges.weights, chunk.offset, chunk.count);
+                chunk.tails = null;
+                chunk.heads = null;
+                chunk.weights = null;
+            }
+        });
+
+        global.trim();
+        edges.names = global;
+        System.out.println("Successfully loaded " + edges.count + " lines. ");
+        return edges;
+    }
+
+    /**
+     * Finds the first position after the line that contains the given offset.
+     */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        // the byte before the boundary may itself end a line
+        long at = position - 1;
+        while (at < size) {
+            buffer.clear();
+            int read = channel.read(buffer, at);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return size;
+    }
+
+    /**
+     * Work done on every chunk by runAll.
+     */
+    private interface ChunkTask {
+        void run(Chunk chunk);
+    }
+
+    /**
+     * Runs a task on every chunk, on up to the given number of threads.
+     */
+    private static void runAll(List<Chunk> chunks, int threads, final ChunkTask task) {
+        if (threads == 1 || chunks.size() <= 1) {
+            for (Chunk chunk : chunks) {
+                task.run(chunk);
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final Chunk chunk : chunks) {
+                futures.add(pool.submit(new Runnable() {
+                    public void run() {
+                        task.run(chunk);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InputLib.InputError("interrupted while loading");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new InputLib.InputError(String.valueOf(cause));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * One memory-mapped piece of the file that starts at a line start and
+     * ends after a line end, and the edges parsed from it with chunk-local
+     * vertex ids.
+     */
+    private static class Chunk {
+        private MappedByteBuffer buffer;
+
+        NameDictionary names = new NameDictionary();
+        int count;
+        int[] tails = new int[64];
+        int[] heads = new int[64];
+        double[] weights = new double[64];
+
+        /** index of the first line without exactly 3 tokens, or -1 */
+        int badLine = -1;
+
+        /** position of the first edge of this chunk in the merged edge list */
+        int offset;
+
+        /** global id of every local id */
+        int[] toGlobal;
+
+        /** token scratch space */
+        private byte[] token = new byte[64];
+
+        Chunk(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Parses every line of the chunk; stops at the first malformed line.
+         */
+        void parse() {
+            MappedByteBuffer in = buffer;
+            int limit = in.limit();
+            long[] spans = new long[3];
+            int pos = 0;
+            while (pos < limit) {
+                // find the tokens on the line, keeping the first 3 as start << 32 | end
+                int tokens = 0;
+                int b = 0;
+                while (pos < limit) {
+                    b = in.get(pos);
+                    if (b == '\n' || b == '\r') {
+                        break;
+                    }
+                    if (isSpace(b)) {
+                        pos++;
+                        continue;
+                    }
+                    int start = pos;
+                    while (pos < limit) {
+                        b = in.get(pos);
+                        if (b == '\n' || b == '\r' || isSpace(b)) {
+                            break;
+                        }
+                        pos++;
+                    }
+                    if (tokens < 3) {
+                        spans[tokens] = ((long) start << 32) | pos;
+                    }
+                    tokens++;
+                }
+                // consume the line terminator, treating \r\n as one
+                if (pos < limit) {
+                    pos++;
+                    if (b == '\r' && pos < limit && in.get(pos) == '\n') {
+                        pos++;
+                    }
+                }
+                if (tokens != 3) {
+                    badLine = count;
+                    release();
+                    return;
+                }
+                if (count == tails.length) {
+                    tails = Arrays.copyOf(tails, 2 * count);
+                    heads = Arrays.copyOf(heads, 2 * count);
+                    weights = Arrays.copyOf(weights, 2 * count);
+                }
+                tails[count] = name(spans[0]);
+                heads[count] = name(spans[1]);
+                weights[count] = number(spans[2]);
+                count++;
+            }
+            release();
+        }
+
+        /**
+         * Drops the mapping, so it can be unmapped once collected.
+         */
+        private void release() {
+            buffer = null;
+            token = null;
+        }
+
+        /**
+         * Interns the name in the given span and returns its local id.
+         */
+        private int name(long span) {
+            int start = (int) (span >>> 32);
+            int length = (int) span - start;
+            if (length > token.length) {
+                token = new byte[Math.max(length, 2 * token.length)];
+            }
+            int hash = NameDictionary.hashStart();
+            for (int i = 0; i < length; i++) {
+                byte c = buffer.get(start + i);
+                token[i] = c;
+                hash = NameDictionary.step(hash, c);
+            }
+            return names.add(token, 0, length, hash);
+        }
+
+        /**
+         * Converts the number in the given span.  Plain decimals whose digits
+         * fit in 2^53 with at most 22 fraction digits are computed directly,
+         * which rounds exactly like Double.parseDouble; everything else is
+         * handed to Double.parseDouble.
+         */
+        private double number(long span) {
+            int start = (int) (span >>> 32);
+            int end = (int) span;
+            int i = start;
+            boolean negative = false;
+            byte c = buffer.get(i);
+            if (c == '-' || c == '+') {
+                negative = (c == '-');
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fraction = -1;
+            for (; i < end; i++) {
+                c = buffer.get(i);
+                if (c >= '0' && c <= '9') {
+                    mantissa = 10 * mantissa + (c - '0');
+                    digits++;
+                    if (fraction >= 0) {
+                        fraction++;
+                    }
+                    if (mantissa > MAX_EXACT) {
+                        return slowNumber(start, end);
+                    }
+                } else if (c == '.' && fraction < 0) {
+                    fraction = 0;
+                } else {
+                    return slowNumber(start, end);
+                }
+            }
+            if (digits == 0 || fraction >= POWERS_OF_TEN.length) {
+                return slowNumber(start, end);
+            }
+            double value = (fraction > 0) ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+            return negative ? -value : value;
+        }
+
+        private double slowNumber(int start, int end) {
+            char[] text = new char[end - start];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = (char) (buffer.get(start + i) & 0xff);
+            }
+            return Double.parseDouble(new String(text));
+        }
+
+        private static boolean isSpace(int b) {
+            return b == ' ' || b == '\t' || b == '\f';
+        }
+    }
+
+    /**
+     * Loads a file and reports the time taken.
+     * Usage: java utility.FastGraphLoader file [threads]
+     */
+    public static void main(String[] args) {
+        int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        CSRGraph graph = loadCSRGraph(args[0], threads);
+        if (graph != null) {
+            System.out.println(graph.numVertices() + " vertices, " + graph.numArcs() / 2
+                    + " edges in " + (System.nanoTime() - start) / 1000000 + " ms.");
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package utility;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * FlightEvents.java
+ * Custom Java Flight Recorder events, so a recording shows graph loads and
+ * shortest path queries next to the GC pauses and latency spikes around
+ * them, without attaching a profiler.  The events appear under the category
+ * Dijkstra with names starting with "dijkstra.".
+ *
+ * The code targets Java 8, where jdk.jfr cannot be compiled against, so
+ * event types are defined at run time through jdk.jfr.EventFactory, looked
+ * up by reflection.  On a JVM without it every type is inert: begin()
+ * returns an event that records nothing.
+ *
+ * Each type caches whether it is enabled, so while no recording has it
+ * enabled begin() reads one volatile field and allocates nothing.  The cache
+ * is refreshed by a jdk.jfr.FlightRecorderListener each time a recording
+ * changes state.  Changing the settings of a recording that is already
+ * running only takes effect at the next start or stop of some recording.
+ */
+public class FlightEvents {
+
+    /** the event category shown by JDK Mission Control */
+    private static final String CATEGORY = "Dijkstra";
+
+    /** an event that records nothing, for types that are off or unavailable */
+    private static final Event NONE = new Event(null, null);
+
+    /** every working type, refreshed together when a recording changes state */
+    private static final List<Type> TYPES = new CopyOnWriteArrayList<>();
+
+    /** whether the recorder listener has been added; guarded by the class lock */
+    private static boolean listening;
+
+    /**
+     * A field of an event type.
+     */
+    public static class Field {
+        final String name;
+        final String label;
+        final Class<?> type;
+        final boolean timespan;
+
+        private Field(String name, String label, Class<?> type, boolean timespan) {
+            this.name = name;
+            this.label = label;
+            this.type = type;
+            this.timespan = timespan;
+        }
+    }
+
+    /**
+     * Describes a field of a primitive type or String.
+     * @param name  the field name, a Java identifier
+     * @param label the name shown in recordings
+     * @param type  the field type
+     * @return the field
+     */
+    public static Field field(String name, String label, Class<?> type) {
+        return new Field(name, label, type, false);
+    }
+
+    /**
+     * Describes a long field holding a duration in nanoseconds.
+     * @param name  the field name, a Java identifier
+     * @param label the name shown in recordings
+     * @return the field
+     */
+    public static Field timespan(String name, String label) {
+        return new Field(name, label, long.class, true);
+    }
+
+    /**
+     * Defines an event type.
+     * @param name  the event name after "dijkstra.", e.g. "Query"
+     * @param label the name shown in recordings
+     * @param description   what one event stands for
+     * @param fields    the fields events of the type carry, set by index in this order
+     * @return the type; inert if this JVM has no Flight Recorder
+     */
+    public static Type define(String name, String label, String description, Field... fields) {
+        try {
+            Class<?> elementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Constructor<?> element = elementClass.getConstructor(Class.class, Object.class);
+            List<Object> annotations = new ArrayList<>();
+            annotations.add(element.newInstance(Class.forName("jdk.jfr.Name"), "dijkstra." + name));
+            annotations.add(element.newInstance(Class.forName("jdk.jfr.Label"), label));
+            annotations.add(element.newInstance(Class.forName("jdk.jfr.Description"), description));
+            annotations.add(element.newInstance(Class.forName("jdk.jfr.Category"), new String[] { CATEGORY }));
+            // stack traces would cost more than most of the events measure
+            annotations.add(element.newInstance(Class.forName("jdk.jfr.StackTrace"), Boolean.FALSE));
+
+            Constructor<?> descriptor = Class.forName("jdk.jfr.ValueDescriptor")
+                    .getConstructor(Class.class, String.class, List.class);
+            List<Object> values = new ArrayList<>();
+            for (Field field : fields) {
+                List<Object> fieldAnnotations = new ArrayList<>();
+                fieldAnnotations.add(element.newInstance(Class.forName("jdk.jfr.Label"), field.label));
+                if (field.timespan) {
+                    fieldAnnotations.add(element.newInstance(Class.forName("jdk.jfr.Timespan"), "NANOSECONDS"));
+                }
+                values.add(descriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+
+            Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            Object factory = factoryClass.getMethod("create", List.class, List.class)
+                    .invoke(null, annotations, values);
+            Object eventType = factoryClass.getMethod("getEventType").invoke(factory);
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            Type type = new Type(factory, factoryClass.getMethod("newEvent"), eventType,
+                    Class.forName("jdk.jfr.EventType").getMethod("isEnabled"), eventClass.getMethod("begin"),
+                    eventClass.getMethod("set", int.class, Object.class), eventClass.getMethod("commit"),
+                    fields.length);
+            listen();
+            // registered before the first refresh, so a state change in between is not lost
+            TYPES.add(type);
+            type.refresh();
+            return type;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Type(null, null, null, null, null, null, null, fields.length);
+        }
+    }
+
+    /**
+     * Adds the listener that refreshes every type when a recording starts,
+     * stops or closes, unless it is already there.
+     */
+    private static synchronized void listen() throws ReflectiveOperationException {
+        if (listening) {
+            return;
+        }
+        Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+        Object listener = Proxy.newProxyInstance(FlightEvents.class.getClassLoader(),
+                new Class<?>[] { listenerClass }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("recordingStateChanged")) {
+                            for (Type type : TYPES) {
+                                type.refresh();
+                            }
+                        } else if (name.equals("equals")) {
+                            return proxy == args[0];
+                        } else if (name.equals("hashCode")) {
+                            return System.identityHashCode(proxy);
+                        } else if (name.equals("toString")) {
+                            return "FlightEvents listener";
+                        }
+                        return null;
+                    }
+                });
+        Class.forName("jdk.jfr.FlightRecorder").getMethod("addListener", listenerClass)
+                .invoke(null, listener);
+        listening = true;
+    }
+
+    /**
+     * A type of event.
+     */
+    public static class Type {
+        private final Object factory;
+        private final Method newEvent;
+        private final Object eventType;
+        private final Method isEnabled;
+        private final Method begin;
+        private final Method set;
+        private final Method commit;
+        private final int fields;
+
+        /** false once reflection has failed, so the type stays quiet from then on */
+        private volatile boolean working;
+
+        /** whether a recording had the type enabled at the last refresh */
+        private volatile boolean enabled;
+
+        private Type(Object factory, Method newEvent, Object eventType, Method isEnabled,
+                Method begin, Method set, Method commit, int fields) {
+            this.factory = factory;
+            this.newEvent = newEvent;
+            this.eventType = eventType;
+            this.isEnabled = isEnabled;
+            this.begin = begin;
+            this.set = set;
+            this.commit = commit;
+            this.fields = fields;
+            this.working = factory != null;
+        }
+
+        /**
+         * Determines whether a running recording has this type enabled, as of
+         * the last time a recording changed state.
+         * @return true if events of this type are being recorded
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Asks the recorder again whether this type is enabled.
+         */
+        private void refresh() {
+            if (!working) {
+                return;
+            }
+            try {
+                enabled = (Boolean) isEnabled.invoke(eventType);
+            } catch (ReflectiveOperationException e) {
+                fail();
+            }
+        }
+
+        /**
+         * Turns the type off for good after reflection has failed.
+         */
+        private void fail() {
+            working = false;
+            enabled = false;
+        }
+
+        /**
+         * Starts timing an event of this type.
+         * @return the event, which records nothing if the type is not enabled
+         */
+        public Event begin() {
+            if (!isEnabled()) {
+                return NONE;
+            }
+            try {
+                Object event = newEvent.invoke(factory);
+                begin.invoke(event);
+                return new Event(this, event);
+            } catch (ReflectiveOperationException e) {
+                fail();
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * One event, from begin() until commit().  Used by one thread.
+     */
+    public static class Event {
+        private final Type type;
+        private final Object event;
+
+        private Event(Type type, Object event) {
+            this.type = type;
+            this.event = event;
+        }
+
+        /**
+         * Determines whether this event will be recorded, so callers can skip
+         * gathering field values otherwise.
+         * @return true if the event is recorded
+         */
+        public boolean isRecording() {
+            return event != null;
+        }
+
+        /**
+         * Sets a field.
+         * @param field the index of the field in the type definition
+         * @param value the value, boxed
+         * @return this event
+         */
+        public Event set(int field, Object value) {
+            if (event != null) {
+                if (field < 0 || field >= type.fields) {
+                    throw new IndexOutOfBoundsException("no field " + field);
+                }
+                try {
+                    type.set.invoke(event, field, value);
+                } catch (ReflectiveOperationException e) {
+                    type.fail();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Ends the event and writes it to the recordings.
+         */
+        public void commit() {
+            if (event != null) {
+                try {
+                    type.commit.invoke(event);
+                } catch (ReflectiveOperationException e) {
+                    type.fail();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package utility;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * GraphGenerator.java
+ * Reproducible synthetic graphs for scale testing.  A generator describes a
+ * family of graphs and a seed; it streams its edges either to a file in the
+ * format GraphInput reads, or into a CSRGraph or OffHeapGraph in memory, and
+ * the same seed always gives the same edges in the same order.  Edges are
+ * streamed rather than collected first, so writing a file needs no memory
+ * per edge and graphs of 10^8 edges can be produced.
+ *
+ * Vertex i is named "v" + i, both in files and in memory.  Weights are whole
+ * numbers, so the graphs can be searched with the integer-keyed queues.  A
+ * vertex that ends up without edges does not appear in a written file.
+ *
+ * Usage: java utility.GraphGenerator shape parameters... seed outputfile
+ *   grid rows cols
+ *   road rows cols
+ *   er vertices edges
+ *   rmat scale edges
+ *   components count verticesEach edgesEach
+ */
+public abstract class GraphGenerator {
+
+    /**
+     * Receives the edges of a generated graph.
+     */
+    public interface EdgeSink {
+        /**
+         * Accepts one undirected edge.
+         * @param tail  one endpoint
+         * @param head  the other endpoint
+         * @param weight    the edge weight
+         */
+        void edge(int tail, int head, double weight) throws IOException;
+    }
+
+    /** the seed every run starts from */
+    protected final long seed;
+
+    /**
+     * Constructor.
+     * @param seed  the seed of the random number generator
+     */
+    protected GraphGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the number of vertices, including any that get no edges.
+     * @return  the vertex count
+     */
+    public abstract int numVertices();
+
+    /**
+     * Gets the number of edges the generator will produce, or an estimate if
+     * it is not known in advance.
+     * @return  the expected edge count
+     */
+    public abstract long expectedEdges();
+
+    /**
+     * Produces every edge of the graph.
+     * @param random    a generator seeded with the seed of this graph
+     * @param sink  receives the edges
+     */
+    protected abstract void generate(Random random, EdgeSink sink) throws IOException;
+
+    /**
+     * Streams the edges of the graph to a sink.
+     * @param sink  receives the edges
+     */
+    public void generate(EdgeSink sink) throws IOException {
+        generate(new Random(seed), sink);
+    }
+
+    /**
+     * Writes the graph to a file in the format GraphInput reads.
+     * @param pathandfilename  the name of the file, including full path.
+     */
+    public void write(String pathandfilename) throws IOException {
+        try (final Writer out = new BufferedWriter(new FileWriter(pathandfilename), 1 << 16)) {
+            generate(new EdgeSink() {
+                public void edge(int tail, int head, double weight) throws IOException {
+                    out.write('v');
+                    out.write(Integer.toString(tail));
+                    out.write(" v");
+                    out.write(Integer.toString(head));
+                    out.write(' ');
+                    out.write(weight == Math.rint(weight) ? Long.toString((long) weight)
+                            : Double.toString(weight));
+                    out.write('\n');
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the graph in memory.
+     * @return  the graph, with vertex i named "v" + i
+     */
+    public CSRGraph toCSRGraph() {
+        final int n = numVertices();
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, expectedEdges()));
+        final int[][] ends = { new int[capacity], new int[capacity] };
+        final double[][] weights = { new double[capacity] };
+        final int[] count = { 0 };
+        try {
+            generate(new EdgeSink() {
+                public void edge(int tail, int head, double weight) {
+                    int e = count[0]++;
+                    if (e == ends[0].length) {
+                        int grown = (int) Math.min(Integer.MAX_VALUE - 8, e * 2L);
+                        ends[0] = Arrays.copyOf(ends[0], grown);
+                        ends[1] = Arrays.copyOf(ends[1], grown);
+                        weights[0] = Arrays.copyOf(weights[0], grown);
+                    }
+                    ends[0][e] = tail;
+                    ends[1][e] = head;
+                    weights[0][e] = weight;
+                }
+            });
+        } catch (IOException e) {
+            // cannot happen, the sink does no I/O
+            throw new IllegalStateException(e);
+        }
+        Object[] names = new Object[n];
+        for (int v = 0; v < n; v++) {
+            names[v] = "v" + v;
+        }
+        return CSRGraph.fromEdges(names, count[0], ends[0], ends[1], weights[0]);
+    }
+
+    /**
+     * Builds the graph in direct memory, for graphs too large for the heap.
+     * @return  the graph, with vertex i named "v" + i
+     */
+    public OffHeapGraph toOffHeapGraph() {
+        final OffHeapGraph.Builder builder = new OffHeapGraph.Builder();
+        for (int v = 0; v < numVertices(); v++) {
+            builder.vertex("v" + v);
+        }
+        try {
+            generate(new EdgeSink() {
+                public void edge(int tail, int head, double weight) {
+                    builder.addEdge(tail, head, weight);
+                }
+            });
+        } catch (IOException e) {
+            // cannot happen, the sink does no I/O
+            throw new IllegalStateException(e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A rows x cols grid, each vertex joined to its right and lower neighbour,
+     * with weights drawn uniformly from 1 to 10.
+     * @param rows  number of rows
+     * @param cols  number of columns
+     * @param seed  the random seed
+     * @return  the generator
+     */
+    public static GraphGenerator grid(final int rows, final int cols, long seed) {
+        checkVertices((long) rows * cols);
+        return new GraphGenerator(seed) {
+            public int numVertices() {
+                return rows * cols;
+            }
+
+            public long expectedEdges() {
+                return 2L * rows * cols - rows - cols;
+            }
+
+            protected void generate(Random random, EdgeSink sink) throws IOException {
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        int v = r * cols + c;
+                        if (c + 1 < cols) {
+                            sink.edge(v, v + 1, 1 + random.nextInt(10));
+                        }
+                        if (r + 1 < rows) {
+                            sink.edge(v, v + cols, 1 + random.nextInt(10));
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * A planar road-like network.  Vertices are grid points moved randomly by
+     * up to 0.3 of the spacing.  Every 16th row and column is a highway and
+     * every 4th an arterial road, which are always present and fast; the local
+     * streets between them are slower and each is missing with probability
+     * 0.15, and one cell in 20 gets a diagonal street.  A weight is the
+     * Euclidean length times the slowness of the road class, in hundredths of
+     * the grid spacing, so the graph has the hierarchy of a real road network.
+     * @param rows  number of rows
+     * @param cols  number of columns
+     * @param seed  the random seed
+     * @return  the generator
+     */
+    public static GraphGenerator roadLike(final int rows, final int cols, long seed) {
+        checkVertices((long) rows * cols);
+        return new GraphGenerator(seed) {
+            public int numVertices() {
+                return rows * cols;
+            }
+
+            public long expectedEdges() {
+                return 2L * rows * cols;
+            }
+
+            protected void generate(Random random, EdgeSink sink) throws IOException {
+                // jitter is drawn per vertex from a second stream, so the
+                // layout does not depend on how many edges were drawn before
+                Random layout = new Random(seed ^ 0x5DEECE66DL);
+                float[] x = new float[rows * cols];
+                float[] y = new float[rows * cols];
+                for (int v = 0; v < x.length; v++) {
+                    x[v] = (v % cols) + (layout.nextFloat() - 0.5f) * 0.6f;
+                    y[v] = (v / cols) + (layout.nextFloat() - 0.5f) * 0.6f;
+                }
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        int v = r * cols + c;
+                        if (c + 1 < cols) {
+                            road(random, sink, x, y, v, v + 1, slowness(r));
+                        }
+                        if (r + 1 < rows) {
+                            road(random, sink, x, y, v, v + cols, slowness(c));
+                        }
+                        if (c + 1 < cols && r + 1 < rows && random.nextInt(20) == 0) {
+                            if (random.nextBoolean()) {
+                                link(sink, x, y, v, v + cols + 1, 1.0);
+                            } else {
+                                link(sink, x, y, v + 1, v + cols, 1.0);
+                            }
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets the slowness of the road along a row or column.
+     */
+    private static double slowness(int line) {
+        if (line % 16 == 0) {
+            return 0.4;
+        }
+        return (line % 4 == 0) ? 0.7 : 1.0;
+    }
+
+    private static void road(Random random, EdgeSink sink, float[] x, float[] y,
+            int a, int b, double slowness) throws IOException {
+        if (slowness == 1.0 && random.nextInt(100) < 15) {
+            return;
+        }
+        link(sink, x, y, a, b, slowness);
+    }
+
+    private static void link(EdgeSink sink, float[] x, float[] y, int a, int b, double slowness)
+            throws IOException {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        sink.edge(a, b, Math.max(1, Math.round(100 * slowness * Math.sqrt(dx * dx + dy * dy))));
+    }
+
+    /**
+     * An Erdos-Renyi random graph G(n, m): m edges whose endpoints are drawn
+     * uniformly and independently, with weights from 1 to 100.  There are no
+     * self-loops, but for speed at large m parallel edges are not removed.
+     * @param n number of vertices
+     * @param m number of edges
+     * @param seed  the random seed
+     * @return  the generator
+     */
+    public static GraphGenerator erdosRenyi(final int n, final long m, long seed) {
+        if (n < 2) {
+            throw new IllegalArgumentException("need at least 2 vertices: " + n);
+        }
+        return new GraphGenerator(seed) {
+            public int numVertices() {
+                return n;
+            }
+
+            public long expectedEdges() {
+                return m;
+            }
+
+            protected void generate(Random random, EdgeSink sink) throws IOException {
+                for (long e = 0; e < m; e++) {
+                    int a = random.nextInt(n);
+                    int b = random.nextInt(n - 1);
+                    sink.edge(a, (b >= a) ? b + 1 : b, 1 + random.nextInt(100));
+                }
+            }
+        };
+    }
+
+    /**
+     * An R-MAT graph with a power-law degree distribution (Chakrabarti, Zhan
+     * and Faloutsos), on 2^scale vertices with the usual quadrant
+     * probabilities 0.57, 0.19, 0.19 and 0.05 and weights from 1 to 100.
+     * Self-loops are drawn again; parallel edges are kept.
+     * @param scale log2 of the number of vertices, at most 30
+     * @param m number of edges
+     * @param seed  the random seed
+     * @return  the generator
+     */
+    public static GraphGenerator rmat(final int scale, final long m, long seed) {
+        if (scale < 1 || scale > 30) {
+            throw new IllegalArgumentException("scale must be between 1 and 30: " + scale);
+        }
+        return new GraphGenerator(seed) {
+            public int numVertices() {
+                return 1 << scale;
+            }
+
+            public long expectedEdges() {
+                return m;
+            }
+
+            protected void generate(Random random, EdgeSink sink) throws IOException {
+                for (long e = 0; e < m; ) {
+                    int a = 0;
+                    int b = 0;
+                    for (int bit = 0; bit < scale; bit++) {
+                        double p = random.nextDouble();
+                        if (p >= 0.57) {
+                            if (p < 0.76) {
+                                b |= 1 << bit;
+                            } else if (p < 0.95) {
+                                a |= 1 << bit;
+                            } else {
+                                a |= 1 << bit;
+                                b |= 1 << bit;
+                            }
+                        }
+                    }
+                    if (a != b) {
+                        sink.edge(a, b, 1 + random.nextInt(100));
+                        e++;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * A graph of several disconnected components of equal size.  Each is a
+     * random spanning tree, so it is connected, plus further uniformly random
+     * edges inside the component, with weights from 1 to 100.  Component k
+     * holds vertices [k * n, (k + 1) * n).
+     * @param count number of components
+     * @param n vertices per component
+     * @param m edges per component, at least n - 1
+     * @param seed  the random seed
+     * @return  the generator
+     */
+    public static GraphGenerator components(final int count, final int n, final long m, long seed) {
+        checkVertices((long) count * n);
+        if (n < 2 || m < n - 1) {
+            throw new IllegalArgumentException("a component needs 2 vertices and n - 1 edges");
+        }
+        return new GraphGenerator(seed) {
+            public int numVertices() {
+                return count * n;
+            }
+
+            public long expectedEdges() {
+                return count * m;
+            }
+
+            protected void generate(Random random, EdgeSink sink) throws IOException {
+                for (int k = 0; k < count; k++) {
+                    int base = k * n;
+                    for (int v = 1; v < n; v++) {
+                        sink.edge(base + random.nextInt(v), base + v, 1 + random.nextInt(100));
+                    }
+                    for (long e = n - 1; e < m; e++) {
+                        int a = random.nextInt(n);
+                        int b = random.nextInt(n - 1);
+                        sink.edge(base + a, base + ((b >= a) ? b + 1 : b), 1 + random.nextInt(100));
+                    }
+                }
+            }
+        };
+    }
+
+    private static void checkVertices(long n) {
+        if (n < 1 || n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("vertex count out of range: " + n);
+        }
+    }
+
+    /**
+     * Writes a generated graph to a file.
+     * @param args  shape, its parameters, seed and output file, see the class comment
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java utility.GraphGenerator "
+                    + "grid|road rows cols | er vertices edges | rmat scale edges "
+                    + "| components count verticesEach edgesEach, then seed outputfile");
+            return;
+        }
+        String shape = args[0];
+        long seed = Long.parseLong(args[args.length - 2]);
+        String file = args[args.length - 1];
+        GraphGenerator generator;
+        if (shape.equals("grid")) {
+            generator = grid(Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+        } else if (shape.equals("road")) {
+            generator = roadLike(Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+        } else if (shape.equals("er")) {
+            generator = erdosRenyi(Integer.parseInt(args[1]), Long.parseLong(args[2]), seed);
+        } else if (shape.equals("rmat")) {
+            generator = rmat(Integer.parseInt(args[1]), Long.parseLong(args[2]), seed);
+        } else if (shape.equals("components")) {
+            generator = components(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    Long.parseLong(args[3]), seed);
+        } else {
+            System.err.println("Unknown shape " + shape);
+            return;
+        }
+        long start = System.nanoTime();
+        generator.write(file);
+        System.out.println("Wrote " + generator.numVertices() + " vertices, about "
+                + generator.expectedEdges() + " edges to " + file + " in "
+                + (System.nanoTime() - start) / 1000000 + " ms.");
+    }
+}
@@ -18,6 +18,19 @@ import java.util.*;
  */
 public class GraphInput {
 
+    /** Flight Recorder event for LoadSimpleGraph */
+    private static final FlightEvents.Type LOAD_EVENT = FlightEvents.define("GraphLoad",
+            "Graph Load", "GraphInput.LoadSimpleGraph reading a file into a SimpleGraph.  Parsing "
+            + "and insertion alternate line by line, so their times are totals over all lines",
+            FlightEvents.field("file", "File", String.class),
+            FlightEvents.field("lines", "Lines", long.class),
+            FlightEvents.field("vertices", "Vertices", long.class),
+            FlightEvents.timespan("openTime", "Open Time"),
+            FlightEvents.timespan("parseTime", "Parse Time"),
+            FlightEvents.timespan("vertexTime", "Vertex Insertion Time"),
+            FlightEvents.timespan("edgeTime", "Edge Insertion Time"),
+            FlightEvents.field("error", "Error", String.class));
+
     /**
      * Load graph data from a text file via user interaction.
      * This method asks the user for a directory and path name.
@@ -41,57 +54,213 @@ public class GraphInput {
      * Each line represents one edge.
      * 
      * This method returns a hashtable of (String, Vertex) pairs.
+     * While a Flight Recorder recording is running, the load is recorded as a
+     * dijkstra.GraphLoad event with the time spent opening the file, parsing,
+     * inserting vertices and inserting edges, and the error that stopped it
+     * if it failed.
      * 
      * @param newgraph  a graph to add edges to. newgraph should already be initialized
      * @param pathandfilename  the name of the file, including full path.
      * @returns  a hash table of (String, Vertex) pairs
      */
     public static Hashtable<String, Vertex> LoadSimpleGraph(SimpleGraph newgraph, String pathandfilename){
+        FlightEvents.Event load = LOAD_EVENT.begin();
+        // time the phases only while a recording wants them
+        boolean timed = load.isRecording();
+        long start = timed ? System.nanoTime() : 0;
+        long openTime = 0;
+        SimpleGraphBuilder builder = null;
+        int linenum = 0;
+        String error = null;
+        try {
+            BufferedReader  inbuf = InputLib.fopen(pathandfilename);
+            if (timed) {
+                openTime = System.nanoTime() - start;
+            }
+            System.out.println("Opened " + pathandfilename + " for input.");
+            builder = new SimpleGraphBuilder(newgraph, timed);
+            linenum = readEdges(inbuf, builder);
+            if (linenum < 0) {
+                error = "invalid number of tokens found on line " + -linenum;
+                return null;
+            }
+            System.out.println("Successfully loaded "+ linenum + " lines. ");
+            return builder.table;
+        } catch (RuntimeException | Error e) {
+            error = e.toString();
+            throw e;
+        } finally {
+            if (timed) {
+                load.set(0, pathandfilename).set(1, (long) Math.abs(linenum))
+                        .set(2, (builder != null) ? (long) builder.table.size() : 0L)
+                        .set(3, openTime).set(4, (builder != null) ? builder.parseTime : 0L)
+                        .set(5, (builder != null) ? builder.vertexTime : 0L)
+                        .set(6, (builder != null) ? builder.edgeTime : 0L).set(7, error);
+                load.commit();
+            }
+        }
+    }
+
+
+    /**
+     * Load graph data from a text file into a CSRGraph whose edge weights are
+     * rounded to whole multiples of a unit, as CSRGraph.quantize does.  Use
+     * this to search with DialQueue or RadixHeap.
+     * @param pathandfilename  the name of the file, including full path.
+     * @param unit  the weight that becomes 1, e.g. 1 for whole seconds
+     * @returns  the loaded graph, or null if the file is malformed
+     */
+    public static CSRGraph LoadCSRGraph(String pathandfilename, double unit) {
+        CSRGraph graph = LoadCSRGraph(pathandfilename);
+        return (graph == null) ? null : graph.quantize(unit);
+    }
+
+    /**
+     * Load graph data from a text file straight into a CSRGraph, without
+     * building the intermediate SimpleGraph.  The file format is the same
+     * as for LoadSimpleGraph.  Vertex ids are assigned in order of first
+     * appearance in the file.
+     * @param pathandfilename  the name of the file, including full path.
+     * @returns  the loaded graph, or null if the file is malformed
+     */
+    public static CSRGraph LoadCSRGraph(String pathandfilename) {
         BufferedReader  inbuf = InputLib.fopen(pathandfilename);
         System.out.println("Opened " + pathandfilename + " for input.");
+        EdgeList edges = new EdgeList();
+        int linenum = readEdges(inbuf, edges);
+        if (linenum < 0) {
+            return null;
+        }
+        System.out.println("Successfully loaded "+ linenum + " lines. ");
+        edges.names.trim();
+        return CSRGraph.fromEdges(edges.names, linenum, edges.tails, edges.heads, edges.weights);
+    }
+
+
+    /**
+     * Receives the edges of a graph file from readEdges, one per line.
+     */
+    private interface EdgeReader {
+        /**
+         * Take one edge.
+         * @param v1name  the label of the first vertex
+         * @param v2name  the label of the second vertex
+         * @param weight  the edge weight
+         */
+        void edge(String v1name, String v2name, double weight);
+    }
+
+    /**
+     * Read every line of a graph file and pass its edge on.  The reader is
+     * closed at the end.  A line without exactly 3 tokens stops the read with
+     * an error message.
+     * @param inbuf  the opened file
+     * @param reader  receives the edges
+     * @returns  the number of lines read, or minus the number of the
+     *           malformed line
+     */
+    private static int readEdges(BufferedReader inbuf, EdgeReader reader) {
         String  line = InputLib.getLine(inbuf); // get first line
         StringTokenizer sTok;
         int n, linenum = 0;
-        Hashtable<String, Vertex> table = new Hashtable<String, Vertex>();
-        SimpleGraph sg = newgraph;
 
         while (line != null) {
             linenum++;
             sTok = new StringTokenizer(line);
             n = sTok.countTokens();
             if (n==3) {
-                Double edgedata;
-                Vertex v1, v2;
-                String v1name, v2name;
-
-                v1name = sTok.nextToken();
-                v2name = sTok.nextToken();
-                edgedata = new Double(Double.parseDouble(sTok.nextToken()));
-                v1 = (Vertex) table.get(v1name);
-                if (v1 == null) {
-//                      System.out.println("New vertex " + v1name);
-                        v1 = sg.insertVertex(null, v1name);
-                        table.put(v1name, v1);
-                }
-                v2 = (Vertex) table.get(v2name);
-                if (v2 == null) {
-//                      System.out.println("New vertex " + v2name);
-                    v2 = sg.insertVertex(null, v2name);
-                    table.put(v2name, v2);
-                }
-//              System.out.println("Inserting edge (" + v1name + "," + v2name + ")" + edgedata);
-                sg.insertEdge(v1,v2,edgedata, null);
+                String v1name = sTok.nextToken();
+                String v2name = sTok.nextToken();
+                reader.edge(v1name, v2name, Double.parseDouble(sTok.nextToken()));
             }
             else {
                 System.err.println("Error:invalid number of tokens found on line " +linenum+ "!");
-                return null;
+                InputLib.fclose(inbuf);
+                return -linenum;
             }
             line = InputLib.getLine(inbuf);
         }
 
         InputLib.fclose(inbuf);
-        System.out.println("Successfully loaded "+ linenum + " lines. ");
-        return table;
+        return linenum;
+    }
+
+    /**
+     * Adds the edges it receives to a SimpleGraph, creating vertices as their
+     * labels first appear.  If timed, it adds up the time spent parsing,
+     * inserting vertices and inserting edges.
+     */
+    private static class SimpleGraphBuilder implements EdgeReader {
+        final Hashtable<String, Vertex> table = new Hashtable<String, Vertex>();
+        final SimpleGraph sg;
+        final boolean timed;
+        long parseTime, vertexTime, edgeTime;
+        /** when the previous edge was done, so the time since then was spent parsing */
+        long mark;
+
+        SimpleGraphBuilder(SimpleGraph sg, boolean timed) {
+            this.sg = sg;
+            this.timed = timed;
+            this.mark = timed ? System.nanoTime() : 0;
+        }
+
+        public void edge(String v1name, String v2name, double weight) {
+            Double edgedata = new Double(weight);
+            Vertex v1, v2;
+            if (timed) {
+                long now = System.nanoTime();
+                parseTime += now - mark;
+                mark = now;
+            }
+            v1 = (Vertex) table.get(v1name);
+            if (v1 == null) {
+//                  System.out.println("New vertex " + v1name);
+                v1 = sg.insertVertex(null, v1name);
+                table.put(v1name, v1);
+            }
+            v2 = (Vertex) table.get(v2name);
+            if (v2 == null) {
+//                  System.out.println("New vertex " + v2name);
+                v2 = sg.insertVertex(null, v2name);
+                table.put(v2name, v2);
+            }
+            if (timed) {
+                long now = System.nanoTime();
+                vertexTime += now - mark;
+                mark = now;
+            }
+//          System.out.println("Inserting edge (" + v1name + "," + v2name + ")" + edgedata);
+            sg.insertEdge(v1,v2,edgedata, null);
+            if (timed) {
+                long now = System.nanoTime();
+                edgeTime += now - mark;
+                mark = now;
+            }
+        }
+    }
+
+    /**
+     * Collects the edges it receives into growable arrays, numbering vertex
+     * labels in order of first appearance.
+     */
+    private static class EdgeList implements EdgeReader {
+        final NameDictionary names = new NameDictionary();
+        int[] tails = new int[16];
+        int[] heads = new int[16];
+        double[] weights = new double[16];
+        int count;
+
+        public void edge(String v1name, String v2name, double weight) {
+            if (count == tails.length) {
+                tails = Arrays.copyOf(tails, 2 * count);
+                heads = Arrays.copyOf(heads, 2 * count);
+                weights = Arrays.copyOf(weights, 2 * count);
+            }
+            tails[count] = names.add(v1name);
+            heads[count] = names.add(v2name);
+            weights[count] = weight;
+            count++;
+        }
     }
 
 
@@ -0,0 +1,412 @@
+package utility;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GraphSnapshot.java
+ * A graph in a versioned binary file that is memory-mapped and searched in
+ * place.  Opening a snapshot reads only its header, so startup costs no
+ * parsing and no heap copy of the graph; pages are faulted in as searches
+ * touch them.  The mapping is read-only, so every process on a host that
+ * opens the same file shares one copy in the page cache.
+ *
+ * The file is little-endian and every section starts on an 8-byte boundary:
+ *   header       64 bytes: magic "DJKGRAPH", int version, int vertex count n,
+ *                long arc count, double largest weight, long name bytes,
+ *                int name index slots, then zero padding
+ *   offsets      n + 1 ints, the CSR arc offsets
+ *   targets      one int per arc, the head vertex
+ *   weights      one double per arc
+ *   name offsets n + 1 longs into the name bytes
+ *   name bytes   the UTF-8 bytes of every vertex name, in id order
+ *   name index   an open-addressing table of vertex id + 1 (0 is empty),
+ *                probed linearly from the FNV-1a hash of the name bytes
+ * A vertex name is stored as its toString(), and vertexName() returns it as
+ * a String.
+ *
+ * Usage: java utility.GraphSnapshot edgelistfile snapshotfile
+ *        java utility.GraphSnapshot snapshotfile
+ */
+public class GraphSnapshot implements IndexedGraph {
+
+    /** the first 8 bytes of every snapshot */
+    private static final long MAGIC = 0x48504152474B4A44L;
+
+    /** the format version this class reads and writes */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+
+    private final int vertices;
+
+    private final int arcs;
+
+    private final double maxWeight;
+
+    private final ByteRegion offsets;
+
+    private final ByteRegion targets;
+
+    private final ByteRegion weights;
+
+    private final ByteRegion nameOffsets;
+
+    private final ByteRegion nameBytes;
+
+    private final ByteRegion nameIndex;
+
+    /** number of slots in the name index, a power of two */
+    private final int slots;
+
+    private GraphSnapshot(int vertices, int arcs, double maxWeight, ByteRegion offsets,
+            ByteRegion targets, ByteRegion weights, ByteRegion nameOffsets,
+            ByteRegion nameBytes, ByteRegion nameIndex, int slots) {
+        this.vertices = vertices;
+        this.arcs = arcs;
+        this.maxWeight = maxWeight;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.nameOffsets = nameOffsets;
+        this.nameBytes = nameBytes;
+        this.nameIndex = nameIndex;
+        this.slots = slots;
+    }
+
+    /**
+     * Memory-maps a snapshot file.  The file must not be changed while the
+     * snapshot is in use.
+     * @param pathandfilename  the name of the file, including full path.
+     * @return  the graph in the file
+     * @throws IOException if the file cannot be read or is not a snapshot of this version
+     */
+    public static GraphSnapshot open(String pathandfilename) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(pathandfilename, "r");
+             FileChannel channel = file.getChannel()) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(pathandfilename + " is not a graph snapshot");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(pathandfilename + " is not a graph snapshot");
+            }
+            int version = header.getInt(8);
+            if (version != VERSION) {
+                throw new IOException(pathandfilename + " has snapshot version " + version
+                        + ", expected " + VERSION);
+            }
+            int n = header.getInt(12);
+            long arcCount = header.getLong(16);
+            double maxWeight = header.getDouble(24);
+            long nameLength = header.getLong(32);
+            int slots = header.getInt(40);
+            if (n < 0 || arcCount < 0 || arcCount > Integer.MAX_VALUE || nameLength < 0
+                    || slots <= n || Integer.bitCount(slots) != 1) {
+                throw new IOException(pathandfilename + " has a corrupt snapshot header");
+            }
+
+            long position = HEADER_BYTES;
+            long[] sizes = { 4L * (n + 1), 4L * arcCount, 8L * arcCount, 8L * (n + 1),
+                    nameLength, 4L * slots };
+            ByteRegion[] regions = new ByteRegion[sizes.length];
+            long end = position;
+            for (long size : sizes) {
+                end = align(end + size);
+            }
+            if (channel.size() < end) {
+                throw new IOException(pathandfilename + " is truncated");
+            }
+            for (int i = 0; i < sizes.length; i++) {
+                regions[i] = ByteRegion.map(channel, position, sizes[i]);
+                position = align(position + sizes[i]);
+            }
+            return new GraphSnapshot(n, (int) arcCount, maxWeight, regions[0], regions[1],
+                    regions[2], regions[3], regions[4], regions[5], slots);
+        }
+    }
+
+    /**
+     * Writes a loaded SimpleGraph as a snapshot.  Vertex ids follow the order
+     * of SimpleGraph.vertices(), as in CSRGraph.fromSimpleGraph.
+     * @param graph  the graph to write; every edge must carry a Double weight
+     * @param pathandfilename  the name of the file, including full path.
+     */
+    public static void write(SimpleGraph graph, String pathandfilename) throws IOException {
+        write(CSRGraph.fromSimpleGraph(graph), pathandfilename);
+    }
+
+    /**
+     * Writes a graph as a snapshot.
+     * @param graph  the graph to write
+     * @param pathandfilename  the name of the file, including full path.
+     */
+    public static void write(IndexedGraph graph, String pathandfilename) throws IOException {
+        // the header's maximum weight must match the weights written after it
+        graph = graph.frozen();
+        int n = graph.numVertices();
+        int arcCount = graph.numArcs();
+
+        // the name index needs every name once, so hash them before writing
+        if (n > 1 << 29) {
+            throw new IllegalArgumentException("too many vertices for the name index: " + n);
+        }
+        int slots = Integer.highestOneBit(Math.max(1, 2 * n - 1)) << 1;
+        int[] index = new int[slots];
+        long nameLength = 0;
+        for (int v = 0; v < n; v++) {
+            byte[] name = encode(graph.vertexName(v));
+            nameLength += name.length;
+            int slot = hash(name) & (slots - 1);
+            while (index[slot] != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            index[slot] = v + 1;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(pathandfilename, "rw");
+             FileChannel channel = file.getChannel()) {
+            channel.truncate(0);
+            Output out = new Output(channel);
+            out.putLong(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(n);
+            out.putLong(arcCount);
+            out.putDouble(graph.maxArcWeight());
+            out.putLong(nameLength);
+            out.putInt(slots);
+            out.align(HEADER_BYTES);
+
+            for (int v = 0; v < n; v++) {
+                out.putInt(graph.arcStart(v));
+            }
+            out.putInt(arcCount);
+            out.align(8);
+            for (int arc = 0; arc < arcCount; arc++) {
+                out.putInt(graph.arcTarget(arc));
+            }
+            out.align(8);
+            for (int arc = 0; arc < arcCount; arc++) {
+                out.putDouble(graph.arcWeight(arc));
+            }
+            long offset = 0;
+            for (int v = 0; v < n; v++) {
+                out.putLong(offset);
+                offset += encode(graph.vertexName(v)).length;
+            }
+            out.putLong(offset);
+            for (int v = 0; v < n; v++) {
+                out.putBytes(encode(graph.vertexName(v)));
+            }
+            out.align(8);
+            for (int slot : index) {
+                out.putInt(slot);
+            }
+            out.align(8);
+            out.flush();
+        }
+    }
+
+    public int numVertices() {
+        return vertices;
+    }
+
+    public int numArcs() {
+        return arcs;
+    }
+
+    public int arcStart(int v) {
+        return offsets.getInt(4L * v);
+    }
+
+    public int arcEnd(int v) {
+        return offsets.getInt(4L * v + 4);
+    }
+
+    public int arcTarget(int arc) {
+        return targets.getInt(4L * arc);
+    }
+
+    public double arcWeight(int arc) {
+        return weights.getDouble(8L * arc);
+    }
+
+    public double maxArcWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Return this graph, whose weights never change.
+     * @return  this graph
+     */
+    public IndexedGraph frozen() {
+        return this;
+    }
+
+    /**
+     * Return the name of a vertex, decoded from the file on every call.
+     * @param v  a vertex id
+     * @return  the name of the vertex
+     */
+    public Object vertexName(int v) {
+        return new String(name(v), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return the id of the vertex whose name has the same toString() as the
+     * given name, found through the name index in the file.
+     * @param name  a vertex name
+     * @return  the vertex id, or -1 if no vertex has that name
+     */
+    public int vertexId(Object name) {
+        if (name == null) {
+            return -1;
+        }
+        byte[] key = encode(name);
+        int slot = hash(key) & (slots - 1);
+        int entry;
+        while ((entry = nameIndex.getInt(4L * slot)) != 0) {
+            long start = nameOffsets.getLong(8L * (entry - 1));
+            long end = nameOffsets.getLong(8L * entry);
+            if (end - start == key.length && matches(start, key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+        return -1;
+    }
+
+    private byte[] name(int v) {
+        long start = nameOffsets.getLong(8L * v);
+        byte[] bytes = new byte[(int) (nameOffsets.getLong(8L * v + 8) - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = nameBytes.getByte(start + i);
+        }
+        return bytes;
+    }
+
+    private boolean matches(long start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (nameBytes.getByte(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the bytes a vertex name is stored as.
+     */
+    static byte[] encode(Object name) {
+        return String.valueOf(name).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The 32-bit FNV-1a hash of a name, as stored in the name index.
+     */
+    static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * 0x01000193;
+        }
+        return h;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Buffered little-endian output to a file channel.
+     */
+    private static class Output {
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        /** bytes written so far, including the buffered ones */
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                ensure(1);
+                int count = Math.min(bytes.length - i, buffer.remaining());
+                buffer.put(bytes, i, count);
+                i += count;
+                position += count;
+            }
+        }
+
+        /**
+         * Pads with zeros up to the next multiple of the given alignment.
+         */
+        void align(int alignment) throws IOException {
+            while (position % alignment != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Converts an edge list to a snapshot, or opens a snapshot and reports it.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2) {
+            CSRGraph graph = FastGraphLoader.loadCSRGraph(args[0]);
+            if (graph != null) {
+                write(graph, args[1]);
+                System.out.println("Wrote snapshot " + args[1]);
+            }
+        } else if (args.length == 1) {
+            long start = System.nanoTime();
+            GraphSnapshot graph = open(args[0]);
+            System.out.println("Opened " + args[0] + " in " + (System.nanoTime() - start) / 1000
+                    + " us: " + graph.numVertices() + " vertices, " + graph.numArcs() + " arcs.");
+        } else {
+            System.err.println("Usage: java utility.GraphSnapshot [edgelistfile] snapshotfile");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package utility;
+
+/**
+ * IndexedGraph.java
+ * Read access to a graph whose vertices are numbered densely from 0 to
+ * numVertices() - 1 and whose arcs are grouped by tail vertex: the arcs
+ * leaving vertex v are the indices [arcStart(v), arcEnd(v)).  Every
+ * undirected edge appears as two arcs, one in each direction.  This is all
+ * the searches in pathfinder need, whether the arrays live on the heap, as
+ * in CSRGraph, or in a memory-mapped file, as in GraphSnapshot.
+ */
+public interface IndexedGraph {
+
+    /**
+     * Return the number of vertices in this graph.
+     * @return  the number of vertices
+     */
+    int numVertices();
+
+    /**
+     * Return the number of arcs in this graph (twice the number of edges).
+     * @return  the number of arcs
+     */
+    int numArcs();
+
+    /**
+     * Return the index of the first arc leaving a vertex.
+     * @param v  a vertex id
+     * @return  the first arc index of v
+     */
+    int arcStart(int v);
+
+    /**
+     * Return one past the index of the last arc leaving a vertex.
+     * @param v  a vertex id
+     * @return  the end of the arc range of v
+     */
+    int arcEnd(int v);
+
+    /**
+     * Return the vertex an arc points to.
+     * @param arc  an arc index
+     * @return  the head vertex id of the arc
+     */
+    int arcTarget(int arc);
+
+    /**
+     * Return the weight of an arc.
+     * @param arc  an arc index
+     * @return  the weight of the arc
+     */
+    double arcWeight(int arc);
+
+    /**
+     * Return the name of a vertex.
+     * @param v  a vertex id
+     * @return  the name of the vertex
+     */
+    Object vertexName(int v);
+
+    /**
+     * Return the id of the vertex with the given name.
+     * @param name  a vertex name
+     * @return  the vertex id, or -1 if no vertex has that name
+     */
+    int vertexId(Object name);
+
+    /**
+     * Return the largest arc weight in this graph.
+     * @return  the maximum weight, or 0 if there are no arcs
+     */
+    double maxArcWeight();
+
+    /**
+     * Return a view of this graph whose weights stay as they are now, for a
+     * search that must see one set of weights from start to end and should
+     * not look for changes on every arc.  A graph whose weights never change
+     * returns itself.
+     * @return  this graph as it is now
+     */
+    IndexedGraph frozen();
+}
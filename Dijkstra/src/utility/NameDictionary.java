@@ -0,0 +1,286 @@
+package utility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * NameDictionary.java
+ * A compact map between vertex names and dense int ids.  The UTF-8 bytes of
+ * every name are stored back to back in one byte arena; an id is an index
+ * into an array of arena offsets, and names are found through an
+ * open-addressing table of ids keyed by the FNV-1a hash of their bytes.  A
+ * name costs its bytes plus about 16 bytes, where a Hashtable<String, Vertex>
+ * spends an entry, a String and its char array per name.
+ *
+ * Adding names is not thread-safe.  Lookups take no locks and write
+ * nothing, so once names are no longer added and the dictionary has been
+ * safely published, for instance through a final field, any number of
+ * threads can look names up at once.
+ */
+public class NameDictionary {
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    /** the bytes of every name, in id order */
+    private byte[] bytes;
+
+    /** number of bytes of the arena in use */
+    private int used;
+
+    /** starts[id] is the arena offset of name id; starts[size] is used */
+    private int[] starts;
+
+    /** the hash of every name, so the table can grow without rehashing bytes */
+    private int[] hashes;
+
+    /** id + 1 of the name in each slot, 0 for an empty slot */
+    private int[] slots;
+
+    private int size;
+
+    /** number of occupied slots, less than size if append() replaced names */
+    private int entries;
+
+    /**
+     * Constructor for an empty dictionary.
+     */
+    public NameDictionary() {
+        this(16);
+    }
+
+    /**
+     * Constructor for a dictionary that will hold about the given number of names.
+     * @param expected  the expected number of names
+     */
+    public NameDictionary(int expected) {
+        int capacity = Math.max(16, expected);
+        bytes = new byte[8 * capacity];
+        starts = new int[capacity + 1];
+        hashes = new int[capacity];
+        slots = new int[tableSize(capacity)];
+    }
+
+    /**
+     * Gets the number of names.
+     * @return  the number of ids handed out
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the id of a name, adding the name with the next id if it is new.
+     * @param name  a name
+     * @return  its id
+     */
+    public int add(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        return add(key, 0, key.length, hash(key, 0, key.length));
+    }
+
+    /**
+     * Adds a name with the next id even if it is already present; lookups
+     * then find the newest id, as Map.put would.
+     * @param name  a name
+     * @return  its new id
+     */
+    public int append(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int h = hash(key, 0, key.length);
+        int slot = find(key, 0, key.length, h);
+        int id = store(key, 0, key.length, h);
+        if (slots[slot] != 0) {
+            // replace the older id; no slot is added, so no growth is needed
+            slots[slot] = id + 1;
+        } else {
+            place(slot, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a name.
+     * @param name  a name
+     * @return  its id, or -1 if it is not in the dictionary
+     */
+    public int id(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        return id(key, 0, key.length, hash(key, 0, key.length));
+    }
+
+    /**
+     * Gets the name with an id.
+     * @param id    an id
+     * @return  the name, as a new String
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("no name with id " + id);
+        }
+        return new String(bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Releases the spare capacity kept for further names.
+     */
+    public void trim() {
+        bytes = Arrays.copyOf(bytes, used);
+        starts = Arrays.copyOf(starts, size + 1);
+        hashes = Arrays.copyOf(hashes, size);
+    }
+
+    /**
+     * The 32-bit FNV-1a hash of a run of bytes, the hash the dictionary
+     * expects with names given as bytes.
+     * @param source    the bytes
+     * @param offset    the first byte
+     * @param length    number of bytes
+     * @return  the hash
+     */
+    static int hash(byte[] source, int offset, int length) {
+        int h = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            h = step(h, source[offset + i]);
+        }
+        return h;
+    }
+
+    /**
+     * Gets the starting value of a hash computed one byte at a time with step().
+     */
+    static int hashStart() {
+        return FNV_OFFSET;
+    }
+
+    /**
+     * Adds one byte to a hash.
+     */
+    static int step(int h, byte b) {
+        return (h ^ (b & 0xff)) * FNV_PRIME;
+    }
+
+    /**
+     * Gets the id of a name given as UTF-8 bytes with their hash, adding it
+     * with the next id if it is new.
+     */
+    int add(byte[] source, int offset, int length, int h) {
+        int slot = find(source, offset, length, h);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        int id = store(source, offset, length, h);
+        place(slot, id);
+        return id;
+    }
+
+    /**
+     * Adds a name of another dictionary, as add() does.
+     */
+    int add(NameDictionary other, int id) {
+        int start = other.starts[id];
+        return add(other.bytes, start, other.starts[id + 1] - start, other.hashes[id]);
+    }
+
+    /**
+     * Gets the id of a name given as UTF-8 bytes with their hash, or -1.
+     */
+    int id(byte[] source, int offset, int length, int h) {
+        return slots[find(source, offset, length, h)] - 1;
+    }
+
+    /**
+     * Finds the slot that holds the name, or the empty slot where it belongs.
+     */
+    private int find(byte[] source, int offset, int length, int h) {
+        int mask = slots.length - 1;
+        int slot = mix(h) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int id = entry - 1;
+            if (hashes[id] == h && equal(id, source, offset, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean equal(int id, byte[] source, int offset, int length) {
+        int start = starts[id];
+        if (starts[id + 1] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[start + i] != source[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies a name into the arena under the next id.
+     */
+    private int store(byte[] source, int offset, int length, int h) {
+        int id = size;
+        if (id == hashes.length) {
+            int grown = Math.max(16, 2 * id);
+            starts = Arrays.copyOf(starts, grown + 1);
+            hashes = Arrays.copyOf(hashes, grown);
+        }
+        if ((long) used + length > bytes.length) {
+            long grown = Math.max(2L * bytes.length, (long) used + length);
+            if (grown > Integer.MAX_VALUE - 8) {
+                if ((long) used + length > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("vertex names exceed 2 GB");
+                }
+                grown = Integer.MAX_VALUE - 8;
+            }
+            bytes = Arrays.copyOf(bytes, (int) grown);
+        }
+        System.arraycopy(source, offset, bytes, used, length);
+        used += length;
+        hashes[id] = h;
+        starts[id + 1] = used;
+        size++;
+        return id;
+    }
+
+    /**
+     * Puts a new id into an empty slot, growing the table when half full.
+     * Growing moves the entries of the old table, not every id, so names
+     * replaced by append() stay replaced.
+     */
+    private void place(int slot, int id) {
+        slots[slot] = id + 1;
+        entries++;
+        if (2 * entries > slots.length) {
+            int[] old = slots;
+            slots = new int[2 * old.length];
+            int mask = slots.length - 1;
+            for (int entry : old) {
+                if (entry != 0) {
+                    int s = mix(hashes[entry - 1]) & mask;
+                    while (slots[s] != 0) {
+                        s = (s + 1) & mask;
+                    }
+                    slots[s] = entry;
+                }
+            }
+        }
+    }
+
+    /**
+     * Spreads the hash bits, so names that differ in their last byte do not
+     * fill neighbouring slots.
+     */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int names) {
+        return Integer.highestOneBit(Math.max(1, 2 * names - 1)) << 1;
+    }
+}
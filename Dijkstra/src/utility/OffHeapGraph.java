@@ -0,0 +1,361 @@
+package utility;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.util.StringTokenizer;
+
+/**
+ * OffHeapGraph.java
+ * A graph whose adjacency arrays, weights and vertex names are kept in
+ * direct ByteBuffers outside the Java heap.  A SimpleGraph spends well over
+ * 100 bytes of heap per edge on Vertex, Edge and list node objects; here an
+ * edge costs two arcs of 12 bytes each plus 4 bytes per vertex of offsets,
+ * and the garbage collector sees a handful of buffer objects however large
+ * the graph is, so graphs of a billion edges need neither a huge heap nor
+ * long collections.  Direct memory is limited by -XX:MaxDirectMemorySize
+ * and is released when the graph is garbage collected.
+ *
+ * The traversal Dijkstra.updateVertices does with SimpleGraph.incidentEdges,
+ * opposite and the edge data is, for vertex v, a walk over the arcs
+ * [arcStart(v), arcEnd(v)) reading arcTarget and arcWeight, so every search
+ * in pathfinder runs on this graph unchanged.  Arc ids are ints, which
+ * limits a graph to Integer.MAX_VALUE arcs, a little over a billion edges.
+ *
+ * Graphs are made with a Builder, which also keeps the edge list off the
+ * heap while it grows, or loaded from a file with load().
+ */
+public class OffHeapGraph implements IndexedGraph {
+
+    private final int vertices;
+
+    private final int arcs;
+
+    private final double maxWeight;
+
+    /** arc offsets, an int per vertex plus a final sentinel */
+    private final ByteRegion offsets;
+
+    /** the head vertex of each arc, an int each */
+    private final ByteRegion targets;
+
+    /** the weight of each arc, a double each */
+    private final ByteRegion weights;
+
+    private final Names names;
+
+    private OffHeapGraph(int vertices, int arcs, double maxWeight, ByteRegion offsets,
+            ByteRegion targets, ByteRegion weights, Names names) {
+        this.vertices = vertices;
+        this.arcs = arcs;
+        this.maxWeight = maxWeight;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.names = names;
+    }
+
+    /**
+     * Load graph data from a text file in the format GraphInput reads.  Lines
+     * are read one at a time, so the heap holds one line at a time however
+     * large the file is.  Vertex ids are assigned in order of first
+     * appearance in the file.
+     * @param pathandfilename  the name of the file, including full path.
+     * @return  the loaded graph, or null if the file is malformed
+     */
+    public static OffHeapGraph load(String pathandfilename) {
+        BufferedReader inbuf = InputLib.fopen(pathandfilename);
+        System.out.println("Opened " + pathandfilename + " for input.");
+        Builder builder = new Builder();
+        int linenum = 0;
+        for (String line = InputLib.getLine(inbuf); line != null; line = InputLib.getLine(inbuf)) {
+            linenum++;
+            StringTokenizer sTok = new StringTokenizer(line);
+            if (sTok.countTokens() != 3) {
+                System.err.println("Error:invalid number of tokens found on line " + linenum + "!");
+                InputLib.fclose(inbuf);
+                return null;
+            }
+            int tail = builder.vertex(sTok.nextToken());
+            int head = builder.vertex(sTok.nextToken());
+            builder.addEdge(tail, head, Double.parseDouble(sTok.nextToken()));
+        }
+        InputLib.fclose(inbuf);
+        System.out.println("Successfully loaded " + linenum + " lines. ");
+        return builder.build();
+    }
+
+    public int numVertices() {
+        return vertices;
+    }
+
+    public int numArcs() {
+        return arcs;
+    }
+
+    public int arcStart(int v) {
+        return offsets.getInt(4L * v);
+    }
+
+    public int arcEnd(int v) {
+        return offsets.getInt(4L * v + 4);
+    }
+
+    public int arcTarget(int arc) {
+        return targets.getInt(4L * arc);
+    }
+
+    public double arcWeight(int arc) {
+        return weights.getDouble(8L * arc);
+    }
+
+    public double maxArcWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Return this graph, whose weights never change.
+     * @return  this graph
+     */
+    public IndexedGraph frozen() {
+        return this;
+    }
+
+    /**
+     * Return the name of a vertex, decoded from direct memory on every call.
+     * @param v  a vertex id
+     * @return  the name of the vertex, as a String
+     */
+    public Object vertexName(int v) {
+        return names.name(v);
+    }
+
+    /**
+     * Return the id of the vertex whose name has the same toString() as the
+     * given name.
+     * @param name  a vertex name
+     * @return  the vertex id, or -1 if no vertex has that name
+     */
+    public int vertexId(Object name) {
+        if (name == null) {
+            return -1;
+        }
+        byte[] key = GraphSnapshot.encode(name);
+        return names.find(key, GraphSnapshot.hash(key));
+    }
+
+    /**
+     * Collects vertices and edges off the heap and builds an OffHeapGraph.
+     * A builder is used by one thread and is finished by build().
+     */
+    public static class Builder {
+
+        private final Names names = new Names();
+
+        private long edges;
+
+        private ByteRegion tails = ByteRegion.growable();
+
+        private ByteRegion heads = ByteRegion.growable();
+
+        private ByteRegion edgeWeights = ByteRegion.growable();
+
+        /**
+         * Gets the id of the vertex with the given name, adding a vertex
+         * with the next id if the name is new.
+         * @param name  a vertex name; stored as its toString()
+         * @return  the vertex id
+         */
+        public int vertex(Object name) {
+            checkOpen();
+            byte[] key = GraphSnapshot.encode(name);
+            int hash = GraphSnapshot.hash(key);
+            int v = names.find(key, hash);
+            return (v >= 0) ? v : names.add(key, hash);
+        }
+
+        /**
+         * Gets the number of vertices added so far.
+         * @return  the vertex count
+         */
+        public int numVertices() {
+            return names.count;
+        }
+
+        /**
+         * Adds an undirected edge.
+         * @param tail  one endpoint, a vertex id
+         * @param head  the other endpoint, a vertex id
+         * @param weight    the edge weight
+         * @throws IllegalArgumentException if either endpoint is not a vertex
+         */
+        public void addEdge(int tail, int head, double weight) {
+            checkOpen();
+            if (tail < 0 || tail >= names.count || head < 0 || head >= names.count) {
+                throw new IllegalArgumentException("no such vertex: " + tail + " or " + head);
+            }
+            if (2 * (edges + 1) > Integer.MAX_VALUE) {
+                throw new IllegalStateException("more than " + Integer.MAX_VALUE / 2 + " edges");
+            }
+            tails.ensure(4 * (edges + 1));
+            heads.ensure(4 * (edges + 1));
+            edgeWeights.ensure(8 * (edges + 1));
+            tails.putInt(4 * edges, tail);
+            heads.putInt(4 * edges, head);
+            edgeWeights.putDouble(8 * edges, weight);
+            edges++;
+        }
+
+        /**
+         * Builds the graph.  Each edge becomes two arcs, and the arcs of
+         * every vertex keep the order in which the edges were added, as in
+         * CSRGraph.fromEdges.  The builder cannot be used afterwards.
+         * @return  the graph
+         */
+        public OffHeapGraph build() {
+            checkOpen();
+            int n = names.count;
+            int arcs = (int) (2 * edges);
+            ByteRegion offsets = ByteRegion.allocate(4L * (n + 1));
+            for (long e = 0; e < edges; e++) {
+                long t = 4L * (tails.getInt(4 * e) + 1);
+                long h = 4L * (heads.getInt(4 * e) + 1);
+                offsets.putInt(t, offsets.getInt(t) + 1);
+                offsets.putInt(h, offsets.getInt(h) + 1);
+            }
+            for (int v = 0; v < n; v++) {
+                offsets.putInt(4L * (v + 1), offsets.getInt(4L * (v + 1)) + offsets.getInt(4L * v));
+            }
+
+            ByteRegion fill = ByteRegion.allocate(4L * Math.max(1, n));
+            for (int v = 0; v < n; v++) {
+                fill.putInt(4L * v, offsets.getInt(4L * v));
+            }
+            ByteRegion targets = ByteRegion.allocate(4L * arcs);
+            ByteRegion weights = ByteRegion.allocate(8L * arcs);
+            double maxWeight = 0;
+            for (long e = 0; e < edges; e++) {
+                int u = tails.getInt(4 * e);
+                int v = heads.getInt(4 * e);
+                double weight = edgeWeights.getDouble(8 * e);
+                maxWeight = Math.max(maxWeight, weight);
+                int arc = fill.getInt(4L * u);
+                targets.putInt(4L * arc, v);
+                weights.putDouble(8L * arc, weight);
+                fill.putInt(4L * u, arc + 1);
+                arc = fill.getInt(4L * v);
+                targets.putInt(4L * arc, u);
+                weights.putDouble(8L * arc, weight);
+                fill.putInt(4L * v, arc + 1);
+            }
+            tails = null;
+            heads = null;
+            edgeWeights = null;
+            return new OffHeapGraph(n, arcs, maxWeight, offsets, targets, weights, names);
+        }
+
+        private void checkOpen() {
+            if (tails == null) {
+                throw new IllegalStateException("the graph has already been built");
+            }
+        }
+    }
+
+    /**
+     * Vertex names in direct memory: the bytes of every name in id order,
+     * where each one starts, its hash, and an open-addressing index of
+     * vertex id + 1 over the hashes that is doubled when half full.
+     */
+    private static class Names {
+        private final ByteRegion starts = ByteRegion.growable();
+        private final ByteRegion bytes = ByteRegion.growable();
+        private final ByteRegion hashes = ByteRegion.growable();
+        private ByteRegion index = ByteRegion.allocate(4L * 1024);
+        private int slots = 1024;
+        private long used;
+        int count;
+
+        Names() {
+            starts.putLong(0, 0);
+        }
+
+        /**
+         * Gets the id of a name, or -1 if it has not been added.
+         */
+        int find(byte[] key, int hash) {
+            int slot = hash & (slots - 1);
+            int entry;
+            while ((entry = index.getInt(4L * slot)) != 0) {
+                int v = entry - 1;
+                if (hashes.getInt(4L * v) == hash && matches(v, key)) {
+                    return v;
+                }
+                slot = (slot + 1) & (slots - 1);
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a name that find() did not return and gives it the next id.
+         */
+        int add(byte[] key, int hash) {
+            int v = count++;
+            bytes.ensure(used + key.length);
+            for (int i = 0; i < key.length; i++) {
+                bytes.putByte(used + i, key[i]);
+            }
+            used += key.length;
+            starts.ensure(8L * (v + 2));
+            starts.putLong(8L * (v + 1), used);
+            hashes.ensure(4L * (v + 1));
+            hashes.putInt(4L * v, hash);
+            if (2L * count > slots) {
+                rehash(2 * slots);
+            } else {
+                insert(index, slots, v, hash);
+            }
+            return v;
+        }
+
+        String name(int v) {
+            long start = starts.getLong(8L * v);
+            byte[] name = new byte[(int) (starts.getLong(8L * v + 8) - start)];
+            for (int i = 0; i < name.length; i++) {
+                name[i] = bytes.getByte(start + i);
+            }
+            return new String(name, StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(int v, byte[] key) {
+            long start = starts.getLong(8L * v);
+            if (starts.getLong(8L * v + 8) - start != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (bytes.getByte(start + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash(int size) {
+            if (size <= 0) {
+                throw new IllegalStateException("too many vertex names");
+            }
+            ByteRegion grown = ByteRegion.allocate(4L * size);
+            for (int v = 0; v < count; v++) {
+                insert(grown, size, v, hashes.getInt(4L * v));
+            }
+            index = grown;
+            slots = size;
+        }
+
+        private static void insert(ByteRegion index, int slots, int v, int hash) {
+            int slot = hash & (slots - 1);
+            while (index.getInt(4L * slot) != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            index.putInt(4L * slot, v + 1);
+        }
+    }
+}
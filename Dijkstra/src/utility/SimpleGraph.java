@@ -14,15 +14,21 @@ import java.util.*;
 /**
  * A class that represents a graph.
  * 
+ * The graph counts its changes: inserting a vertex or an edge, or setting
+ * the data (the weight) of one of its edges, moves version() forward.
+ * 
  * @author edhong
  * @version 0.0
  */
 
-public class SimpleGraph {
+public class SimpleGraph implements Versioned {
 
     LinkedList<Vertex> vertexList;
     LinkedList<Edge> edgeList;
 
+    /** number of changes so far; written by the one thread that changes the graph */
+    private volatile long version;
+
     // Constructor
     public SimpleGraph() {
         this.vertexList = new LinkedList<Vertex>();
@@ -75,6 +81,7 @@ public class SimpleGraph {
         Vertex v;
         v = new Vertex(data, name);
         vertexList.addLast(v);
+        changed();
         return v;
     }
 
@@ -89,9 +96,11 @@ public class SimpleGraph {
 	public Edge insertEdge(Vertex v, Vertex w, Object data, Object name) {
         Edge e;
         e = new Edge(v, w, data, name);
+        e.graph = this;
         edgeList.addLast(e);
         v.incidentEdgeList.addLast(e);
         w.incidentEdgeList.addLast(e);
+        changed();
         return e;
     }
 
@@ -118,6 +127,22 @@ public class SimpleGraph {
         return w;
     }
     
+    /**
+     * Return the version of this graph, which changes with every insertion
+     * and every change of edge data.
+     * @returns  the number of changes made so far
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Record a change to this graph.
+     */
+    void changed() {
+        version++;
+    }
+
     /**
      * Return the number of vertices in this graph.
      * @returns  the number of vertices
@@ -0,0 +1,26 @@
+package utility;
+
+/**
+ * Versioned.java
+ * A graph that counts its changes.  The version moves forward whenever a
+ * vertex or edge is added or an edge weight changes, so anything derived
+ * from the graph, such as a cached query result, is still valid exactly
+ * while the version it was computed at is current.
+ */
+public interface Versioned {
+
+    /**
+     * Gets the current version.
+     * @return  a number that changes whenever the graph does
+     */
+    long version();
+
+    /**
+     * Gets the version of a graph that may or may not count its changes.
+     * @param graph any graph
+     * @return  its version if it is Versioned, otherwise 0, which never changes
+     */
+    static long of(Object graph) {
+        return (graph instanceof Versioned) ? ((Versioned) graph).version() : 0;
+    }
+}